@@ -0,0 +1,148 @@
+package de.lumemedia.translation;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/*
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * A message rendered for an audience, once per distinct language of its recipients.
+ * <p>
+ * Recipients are grouped by their language in the order they first occur, and all recipients of a
+ * group share the same rendered string and, if requested, the same UTF-8 encoding of it. The languages
+ * of the recipients are looked up by name in the catalog the message is rendered against, so recipients
+ * holding different versions of one language share a group and the current content.
+ *
+ * @param <R> The recipient type.
+ */
+@Getter
+public final class AudienceMessage<R> {
+
+    private final List<Group<R>> groups;
+
+    private AudienceMessage(List<Group<R>> groups) {
+        this.groups = groups;
+    }
+
+    /**
+     * Renders a message for the given recipients.
+     *
+     * @param recipients The recipients of the message.
+     * @param language   Extracts the language of a recipient, which may return null.
+     * @param catalog    The catalog the languages are resolved in and the message is rendered against.
+     * @param fallback   The language of recipients without a language, or null to render
+     *                   {@link MessageTemplate#NOT_FOUND} for them.
+     * @param message    The message to render.
+     * @param objects    The arguments of the message.
+     * @param <R>        The recipient type.
+     * @return The rendered message.
+     */
+    public static <R> AudienceMessage<R> render(@NotNull Collection<? extends R> recipients,
+                                                @NotNull Function<? super R, Language> language,
+                                                @NotNull Catalog catalog,
+                                                @Nullable Language fallback,
+                                                @NotNull MessageHandle message,
+                                                Object... objects) {
+        // Each distinct language object is resolved by name once, so old and current versions of a language form one group
+        var resolved = new IdentityHashMap<Language, Language>();
+        var recipientsByLanguage = new LinkedHashMap<Language, List<R>>();
+        for (var recipient : recipients) {
+            var recipientLanguage = language.apply(recipient);
+            if (recipientLanguage == null) {
+                recipientLanguage = fallback;
+            }
+            if (recipientLanguage != null) {
+                recipientLanguage = resolved.computeIfAbsent(recipientLanguage, key -> {
+                    var current = catalog.language(key.name());
+                    return current == null ? key : current;
+                });
+            }
+            recipientsByLanguage.computeIfAbsent(recipientLanguage, s -> new ArrayList<>()).add(recipient);
+        }
+
+        var groups = new ArrayList<Group<R>>(recipientsByLanguage.size());
+        for (var entry : recipientsByLanguage.entrySet()) {
+            // Rendered like the message repositories do, through the fallback chains and the render cache
+            var text = entry.getKey() == null
+                    ? MessageTemplate.NOT_FOUND.render(objects)
+                    : message.render(catalog, entry.getKey(), objects);
+            groups.add(new Group<>(entry.getKey(), text, Collections.unmodifiableList(entry.getValue())));
+        }
+        return new AudienceMessage<>(Collections.unmodifiableList(groups));
+    }
+
+    /**
+     * Performs the given action for every recipient with the message rendered in its language.
+     *
+     * @param action The action to perform.
+     */
+    public void forEach(@NotNull BiConsumer<? super R, String> action) {
+        for (var group : this.groups) {
+            for (var recipient : group.recipients) {
+                action.accept(recipient, group.text);
+            }
+        }
+    }
+
+    /**
+     * The recipients of one language and their rendered message.
+     *
+     * @param <R> The recipient type.
+     */
+    @Getter
+    public static final class Group<R> {
+        private final Language language;
+        private final String text;
+        private final List<R> recipients;
+        @Getter(AccessLevel.NONE)
+        private volatile byte[] utf8;
+
+        private Group(Language language, String text, List<R> recipients) {
+            this.language = language;
+            this.text = text;
+            this.recipients = recipients;
+        }
+
+        /**
+         * Encodes the rendered message on first call. The returned array is shared by all recipients
+         * of the group and must not be modified.
+         *
+         * @return The rendered message as UTF-8 bytes.
+         */
+        public byte[] utf8() {
+            var utf8 = this.utf8;
+            if (utf8 == null) {
+                // Racing first calls encode the same bytes, whichever is stored wins
+                utf8 = this.text.getBytes(StandardCharsets.UTF_8);
+                this.utf8 = utf8;
+            }
+            return utf8;
+        }
+    }
+}
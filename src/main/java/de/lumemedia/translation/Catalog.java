@@ -0,0 +1,209 @@
+package de.lumemedia.translation;
+
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * An immutable snapshot of all loaded languages.
+ * <p>
+ * A catalog is built off to the side and then published with a single volatile write, so readers
+ * never block and never observe a half-loaded state. Languages and pools reachable from a published
+ * catalog must not be mutated; writers copy the affected language and pool and publish a new catalog.
+ * Message repositories outlive catalogs and look their pools up in the current catalog by name.
+ */
+@Getter
+public final class Catalog {
+
+    public static final Catalog EMPTY = new Catalog(List.of(), 0);
+
+    private final List<Language> languages;
+    private final List<Language> defaultLanguages;
+    private final Map<String, Language> languagesByName;
+    private final LanguageIndex languageIndex;
+    private final Map<String, List<Language>> fallbackChains;
+    private final RenderCache renderCache;
+    private final boolean fallbacks;
+    private final long revision;
+
+    /**
+     * Creates a catalog of the given languages. Languages whose name is already taken by an earlier
+     * language are skipped.
+     *
+     * @param languages The languages of the catalog.
+     * @param revision  The revision of the catalog.
+     */
+    public Catalog(@NotNull Collection<Language> languages, long revision) {
+        this(languages, revision, null, false);
+    }
+
+    /**
+     * Creates a catalog of the given languages whose message repositories render through the given cache.
+     * Languages whose name is already taken by an earlier language are skipped.
+     *
+     * @param languages   The languages of the catalog.
+     * @param revision    The revision of the catalog.
+     * @param renderCache The cache of rendered messages, shared with the successors of this catalog, or null.
+     * @param fallbacks   Whether message repositories resolve missing messages through the fallback chain
+     *                    of their language.
+     */
+    public Catalog(@NotNull Collection<Language> languages, long revision, @Nullable RenderCache renderCache, boolean fallbacks) {
+        var byName = new HashMap<String, Language>();
+        var ordered = new ArrayList<Language>(languages.size());
+        var defaults = new ArrayList<Language>();
+
+        for (var language : languages) {
+            // Skip languages with a name which is already part of the catalog
+            if (byName.putIfAbsent(TextUtil.normalize(language.name()), language) != null) {
+                continue;
+            }
+            // Published content is read-only, writers copy the affected pools and folders
+            language.freeze();
+            ordered.add(language);
+            if (language.isDefault()) {
+                defaults.add(language);
+            }
+        }
+
+        this.languages = Collections.unmodifiableList(ordered);
+        this.defaultLanguages = Collections.unmodifiableList(defaults);
+        this.languagesByName = Collections.unmodifiableMap(byName);
+        this.languageIndex = new LanguageIndex(ordered, defaults);
+        this.revision = revision;
+        this.renderCache = renderCache;
+        this.fallbacks = fallbacks;
+
+        // Chains are resolved once per catalog, so a lookup never has to scan the languages
+        var chains = new HashMap<String, List<Language>>();
+        if (fallbacks) {
+            for (var language : ordered) {
+                chains.put(TextUtil.normalize(language.name()), fallbackChain(language, ordered, this.languageIndex, defaults));
+            }
+        }
+        this.fallbackChains = Collections.unmodifiableMap(chains);
+    }
+
+    /**
+     * Creates the successor of this catalog with the given languages.
+     *
+     * @param languages The languages of the new catalog.
+     * @return The new catalog with the next revision.
+     */
+    public Catalog withLanguages(@NotNull Collection<Language> languages) {
+        return new Catalog(languages, this.revision + 1, this.renderCache, this.fallbacks);
+    }
+
+    /**
+     * Retrieves a language by name, ignoring case.
+     *
+     * @param name The name of the language.
+     * @return The language, or null if it is not part of this catalog.
+     */
+    public Language language(@NotNull String name) {
+        return this.languagesByName.get(TextUtil.normalize(name));
+    }
+
+    /**
+     * Retrieves the languages a missing message of a language is looked up in, in order.
+     *
+     * @param name The name of the language.
+     * @return The fallback chain without the language itself, empty if fallbacks are disabled.
+     */
+    public List<Language> fallbacks(@NotNull String name) {
+        return this.fallbackChains.getOrDefault(TextUtil.normalize(name), List.of());
+    }
+
+    private static List<Language> fallbackChain(Language language, List<Language> languages,
+                                                LanguageIndex index, List<Language> defaults) {
+        var chain = new ArrayList<Language>();
+
+        // Follow the fallbacks configured in the metadata, including the ones of the fallback languages
+        for (var i = -1; i < chain.size(); i++) {
+            var current = i < 0 ? language : chain.get(i);
+            for (var reference : fallbackReferences(current)) {
+                var fallback = index.exact(reference);
+                if (fallback != null && fallback != language && !chain.contains(fallback)) {
+                    chain.add(fallback);
+                }
+            }
+        }
+
+        // Then languages sharing the primary subtag of a tag, e.g. de_de for de_at
+        for (var tag : tags(language)) {
+            var primary = primarySubtag(tag);
+            for (var candidate : languages) {
+                if (candidate != language && !chain.contains(candidate)
+                        && Arrays.stream(tags(candidate)).anyMatch(other -> primarySubtag(other).equals(primary))) {
+                    chain.add(candidate);
+                }
+            }
+        }
+
+        // And the default languages last
+        for (var defaultLanguage : defaults) {
+            if (defaultLanguage != language && !chain.contains(defaultLanguage)) {
+                chain.add(defaultLanguage);
+            }
+        }
+        return List.copyOf(chain);
+    }
+
+    private static List<String> fallbackReferences(Language language) {
+        if (language.metaData() == null) {
+            return List.of();
+        }
+        // The fallback is either a single language name or tag, or an array of them
+        var fallback = language.metaData().jsonObject().get("fallback");
+        if (fallback == null || fallback.isJsonNull()) {
+            return List.of();
+        }
+        if (fallback.isJsonPrimitive()) {
+            return List.of(fallback.getAsString());
+        }
+        var references = new ArrayList<String>();
+        if (fallback.isJsonArray()) {
+            for (var element : fallback.getAsJsonArray()) {
+                if (element.isJsonPrimitive()) {
+                    references.add(element.getAsString());
+                }
+            }
+        }
+        return references;
+    }
+
+    private static String[] tags(Language language) {
+        return language.tags() == null ? new String[0] : language.tags();
+    }
+
+    private static String primarySubtag(String tag) {
+        var end = 0;
+        while (end < tag.length() && tag.charAt(end) != '_' && tag.charAt(end) != '-') {
+            end++;
+        }
+        return TextUtil.normalize(tag.substring(0, end));
+    }
+}
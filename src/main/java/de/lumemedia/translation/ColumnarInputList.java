@@ -0,0 +1,278 @@
+package de.lumemedia.translation;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+
+/*
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * An input list which stores its content in columns addressed by the ids of a shared {@link KeyDictionary}.
+ * <p>
+ * The list keeps the key ids in list order and the inputs in a column indexed by key id, so lookups are an
+ * array access without hashing the list. Inputs equal to the first input stored for a key in any list of the
+ * dictionary are that very instance, which shares its key, string and template across languages, and every
+ * lookup returns the stored instance without allocating.
+ * <p>
+ * A list holding two keys which only differ in case cannot be represented by key ids and turns into a
+ * regular list on the mutation which introduces the second key.
+ */
+public class ColumnarInputList extends IndexedList<Input> {
+
+    private static final int[] NO_IDS = new int[0];
+    private static final Input[] NO_INPUTS = new Input[0];
+
+    private final KeyDictionary dictionary;
+    private int[] ids;
+    private int size;
+    // The following columns are indexed by key id, a position is stored incremented by one so 0 means absent
+    private int[] positions;
+    private Input[] inputs;
+    private boolean materialized;
+
+    /**
+     * @param dictionary The key dictionary of the pool or folder the list belongs to.
+     */
+    public ColumnarInputList(@NotNull KeyDictionary dictionary) {
+        this.dictionary = dictionary;
+        this.ids = NO_IDS;
+        this.positions = NO_IDS;
+        this.inputs = NO_INPUTS;
+    }
+
+    /**
+     * @param dictionary The key dictionary of the pool or folder the list belongs to.
+     * @param inputs     The initial inputs of the list.
+     */
+    public ColumnarInputList(@NotNull KeyDictionary dictionary, @NotNull Collection<? extends Input> inputs) {
+        this(dictionary);
+        this.ids = new int[inputs.size()];
+        this.addAll(inputs);
+    }
+
+    private ColumnarInputList(ColumnarInputList source) {
+        this.dictionary = source.dictionary;
+        this.ids = Arrays.copyOf(source.ids, source.size);
+        this.size = source.size;
+        this.positions = source.positions.clone();
+        this.inputs = source.inputs.clone();
+    }
+
+    /**
+     * Creates a copy of this list which shares the dictionary and the values, but owns its columns.
+     *
+     * @return The copied list.
+     */
+    public ColumnarInputList copy() {
+        return this.materialized ? new ColumnarInputList(this.dictionary, this) : new ColumnarInputList(this);
+    }
+
+    /**
+     * Looks up the template of a key by its id, falling back to the key if the ids of this list are not
+     * the ones of the given dictionary.
+     *
+     * @param dictionary The dictionary the id belongs to.
+     * @param id         The id of the key.
+     * @param key        The key.
+     * @return The template of the key, or null if the key is missing or has no value.
+     */
+    MessageTemplate template(@NotNull KeyDictionary dictionary, int id, @NotNull String key) {
+        if (!this.materialized && dictionary == this.dictionary) {
+            return this.contains(id) ? this.inputs[id].template() : null;
+        }
+        var input = this.find(key);
+        return input == null ? null : input.template();
+    }
+
+    @Override
+    public Input find(@NotNull String key) {
+        if (this.materialized) {
+            return super.find(key);
+        }
+        var id = this.dictionary.find(key);
+        return this.contains(id) ? this.inputs[id] : null;
+    }
+
+    @Override
+    public boolean containsKey(@NotNull String key) {
+        return this.materialized ? super.containsKey(key) : this.contains(this.dictionary.find(key));
+    }
+
+    @Override
+    public Input put(@NotNull Input element) {
+        if (this.materialized) {
+            return super.put(element);
+        }
+        var id = this.dictionary.id(element.key());
+        if (!this.contains(id)) {
+            this.add(this.size, element);
+            return null;
+        }
+        return this.set(this.positions[id] - 1, element);
+    }
+
+    @Override
+    public Input removeKey(@NotNull String key) {
+        if (this.materialized) {
+            return super.removeKey(key);
+        }
+        var id = this.dictionary.find(key);
+        return this.contains(id) ? this.remove(this.positions[id] - 1) : null;
+    }
+
+    @Override
+    public Input get(int i) {
+        if (this.materialized) {
+            return super.get(i);
+        }
+        Objects.checkIndex(i, this.size);
+        return this.inputs[this.ids[i]];
+    }
+
+    @Override
+    public int size() {
+        return this.materialized ? super.size() : this.size;
+    }
+
+    @Override
+    public Input set(int i, Input element) {
+        this.checkMutable();
+        if (this.materialized) {
+            return super.set(i, element);
+        }
+        Objects.checkIndex(i, this.size);
+        var previousId = this.ids[i];
+        var previous = this.inputs[previousId];
+        var id = this.dictionary.id(element.key());
+        if (id != previousId) {
+            if (this.contains(id)) {
+                this.materialize();
+                return super.set(i, element);
+            }
+            this.clearSlot(previousId);
+            this.ids[i] = id;
+        }
+        this.store(id, i, element);
+        return previous;
+    }
+
+    @Override
+    public void add(int i, Input element) {
+        this.checkMutable();
+        if (this.materialized) {
+            super.add(i, element);
+            return;
+        }
+        Objects.checkIndex(i, this.size + 1);
+        var id = this.dictionary.id(element.key());
+        if (this.contains(id)) {
+            this.materialize();
+            super.add(i, element);
+            return;
+        }
+
+        if (this.size == this.ids.length) {
+            this.ids = Arrays.copyOf(this.ids, Math.max(8, this.size * 2));
+        }
+        System.arraycopy(this.ids, i, this.ids, i + 1, this.size - i);
+        this.size++;
+        this.modCount++;
+        this.store(id, i, element);
+        this.ids[i] = id;
+        this.reposition(i + 1);
+    }
+
+    @Override
+    public Input remove(int i) {
+        this.checkMutable();
+        if (this.materialized) {
+            return super.remove(i);
+        }
+        Objects.checkIndex(i, this.size);
+        var id = this.ids[i];
+        var removed = this.inputs[id];
+        System.arraycopy(this.ids, i + 1, this.ids, i, this.size - i - 1);
+        this.size--;
+        this.modCount++;
+        this.clearSlot(id);
+        this.reposition(i);
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        this.checkMutable();
+        if (this.materialized) {
+            super.clear();
+            return;
+        }
+        this.ids = NO_IDS;
+        this.size = 0;
+        this.positions = NO_IDS;
+        this.inputs = NO_INPUTS;
+        this.modCount++;
+    }
+
+    private boolean contains(int id) {
+        return id >= 0 && id < this.positions.length && this.positions[id] != 0;
+    }
+
+    private void store(int id, int position, Input element) {
+        if (id >= this.positions.length) {
+            var length = Math.max(id + 1, this.positions.length * 2);
+            this.positions = Arrays.copyOf(this.positions, length);
+            this.inputs = Arrays.copyOf(this.inputs, length);
+        }
+
+        // Values equal to the first value of the key in any language share its input, or at least its string and template
+        var shared = this.dictionary.share(id, element);
+        this.positions[id] = position + 1;
+        this.inputs[id] = shared == element || shared.key().equals(element.key())
+                ? shared
+                : new Input(element.key(), shared.raw(), shared.template());
+    }
+
+    private void clearSlot(int id) {
+        this.positions[id] = 0;
+        this.inputs[id] = null;
+    }
+
+    private void reposition(int from) {
+        for (var i = from; i < this.size; i++) {
+            this.positions[this.ids[i]] = i + 1;
+        }
+    }
+
+    private void materialize() {
+        var inputs = new Input[this.size];
+        for (var i = 0; i < inputs.length; i++) {
+            inputs[i] = this.inputs[this.ids[i]];
+        }
+        this.clear();
+        this.materialized = true;
+        for (var input : inputs) {
+            super.add(super.size(), input);
+        }
+    }
+
+    private Object writeReplace() {
+        // The dictionary ids are only meaningful within this process
+        return new IndexedList<>(this);
+    }
+}
@@ -0,0 +1,127 @@
+package de.lumemedia.translation;
+
+import de.lumemedia.translation.folder.Folder;
+import de.lumemedia.translation.folder.MultiFolderContentPool;
+import de.lumemedia.translation.unsorted.UnsortedContentPool;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/**
+ * A collection of content for many pools and folders which is injected at once.
+ * <p>
+ * Content is staged in hash-indexed pools, so duplicate keys within the batch are dropped while
+ * adding (the first one wins). {@link TranslationAPI#injectContent(ContentBatch)} merges the whole
+ * batch into every language in a single pass and triggers a single flush and notification.
+ */
+public class ContentBatch {
+
+    private final Map<String, UnsortedContentPool> unsortedPools = new LinkedHashMap<>();
+    private final Map<String, MultiFolderContentPool> folderPools = new LinkedHashMap<>();
+
+    /**
+     * Stages content for an unsorted pool. The pool is created in every language even if no content is new.
+     *
+     * @param poolName The name of the pool.
+     * @param inputs   The content to inject.
+     * @return This batch.
+     */
+    public ContentBatch unsorted(@NotNull String poolName, @NotNull Collection<Input> inputs) {
+        var pool = this.unsortedPools.computeIfAbsent(TextUtil.normalize(poolName), s -> new UnsortedContentPool(poolName));
+        for (var input : inputs) {
+            // Skip invalid content and content which is already staged
+            if (input.key().isEmpty() && (input.raw() == null || input.raw().isEmpty())) {
+                continue;
+            }
+            if (!pool.inputs().containsKey(input.key())) {
+                pool.inputs().add(input);
+            }
+        }
+        return this;
+    }
+
+    public ContentBatch unsorted(@NotNull String poolName, @NotNull Input... inputs) {
+        return this.unsorted(poolName, Arrays.asList(inputs));
+    }
+
+    /**
+     * Stages content for a folder of a multi-folder pool. The pool is created in every language even if no
+     * content is new.
+     *
+     * @param poolName   The name of the pool.
+     * @param folderName The name of the folder within the pool.
+     * @param inputs     The content to inject.
+     * @return This batch.
+     */
+    public ContentBatch folder(@NotNull String poolName, @NotNull String folderName, @NotNull Collection<Input> inputs) {
+        var pool = this.folderPools.computeIfAbsent(TextUtil.normalize(poolName), s -> new MultiFolderContentPool(poolName));
+        if (folderName.isEmpty() || inputs.isEmpty()) {
+            return this;
+        }
+
+        var folder = pool.folder(folderName);
+        if (folder == null) {
+            folder = new Folder(folderName);
+            pool.folders().add(folder);
+        }
+        for (var input : inputs) {
+            if (!folder.rows().containsKey(input.key())) {
+                folder.rows().add(input);
+            }
+        }
+        return this;
+    }
+
+    public ContentBatch folder(@NotNull String poolName, @NotNull String folderName, @NotNull Input... inputs) {
+        return this.folder(poolName, folderName, Arrays.asList(inputs));
+    }
+
+    /**
+     * Stages all content of another batch.
+     *
+     * @param other The batch to merge.
+     * @return This batch.
+     */
+    public ContentBatch merge(@NotNull ContentBatch other) {
+        for (var pool : other.unsortedPools.values()) {
+            this.unsorted(pool.poolMame(), pool.inputs());
+        }
+        for (var pool : other.folderPools.values()) {
+            this.folderPools.computeIfAbsent(TextUtil.normalize(pool.poolMame()), s -> new MultiFolderContentPool(pool.poolMame()));
+            for (var folder : pool.folders()) {
+                this.folder(pool.poolMame(), folder.key(), folder.rows());
+            }
+        }
+        return this;
+    }
+
+    public Collection<UnsortedContentPool> unsortedPools() {
+        return this.unsortedPools.values();
+    }
+
+    public Collection<MultiFolderContentPool> folderPools() {
+        return this.folderPools.values();
+    }
+
+    public boolean isEmpty() {
+        return this.unsortedPools.isEmpty() && this.folderPools.isEmpty();
+    }
+}
@@ -0,0 +1,110 @@
+package de.lumemedia.translation;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * A bounded least-recently-used cache of entries decoded from raw pool content.
+ * <p>
+ * The cache is split into segments, each guarded by its own lock, so concurrent lookups of different
+ * entries rarely contend. Entries are owned by the list they were decoded from and identified by their
+ * position in it; owners are compared by identity.
+ */
+public final class DecodedCache {
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    /**
+     * @param capacity The maximum number of entries kept across all segments.
+     */
+    public DecodedCache(int capacity) {
+        var segmentCapacity = Math.max(1, capacity / SEGMENTS);
+        for (var i = 0; i < SEGMENTS; i++) {
+            this.segments[i] = new Segment(segmentCapacity);
+        }
+    }
+
+    /**
+     * @param owner The list the entry was decoded from.
+     * @param slot  The position of the entry in the list.
+     * @return The cached entry, or null if it is not cached.
+     */
+    public Input get(@NotNull Object owner, int slot) {
+        var key = new Slot(owner, slot);
+        var segment = this.segment(key);
+        synchronized (segment) {
+            return segment.get(key);
+        }
+    }
+
+    /**
+     * @param owner The list the entry was decoded from.
+     * @param slot  The position of the entry in the list.
+     * @param input The decoded entry.
+     */
+    public void put(@NotNull Object owner, int slot, @NotNull Input input) {
+        var key = new Slot(owner, slot);
+        var segment = this.segment(key);
+        synchronized (segment) {
+            segment.put(key, input);
+        }
+    }
+
+    private Segment segment(Slot key) {
+        return this.segments[(key.hashCode() & 0x7fffffff) % SEGMENTS];
+    }
+
+    private static final class Slot {
+        private final Object owner;
+        private final int slot;
+
+        private Slot(Object owner, int slot) {
+            this.owner = owner;
+            this.slot = slot;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Slot other && other.owner == this.owner && other.slot == this.slot;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this.owner) * 31 + this.slot;
+        }
+    }
+
+    private static final class Segment extends LinkedHashMap<Slot, Input> {
+        private final int capacity;
+
+        private Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Slot, Input> eldest) {
+            return this.size() > this.capacity;
+        }
+    }
+}
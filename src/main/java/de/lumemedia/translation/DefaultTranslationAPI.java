@@ -25,15 +25,28 @@ package de.lumemedia.translation;
  */
 
 import com.mongodb.client.MongoCollection;
-import com.mongodb.client.model.Filters;
 import dev.golgolex.quala.json.document.JsonDocument;
 import dev.golgolex.quala.netty5.client.NettyClient;
 import de.lumemedia.translation.folder.Folder;
 import de.lumemedia.translation.folder.FolderMessageRepository;
 import de.lumemedia.translation.folder.MultiFolderContentPool;
+import de.lumemedia.translation.network.BroadcastCoalescer;
+import de.lumemedia.translation.network.ContentDelta;
 import de.lumemedia.translation.network.TranslationNetworkManager;
+import de.lumemedia.translation.network.protocol.PacketOutContentDelta;
 import de.lumemedia.translation.network.protocol.PacketOutLanguageCreation;
 import de.lumemedia.translation.network.protocol.PacketOutLanguagesReload;
+import de.lumemedia.translation.persistence.CatalogWriter;
+import de.lumemedia.translation.persistence.ChangeSet;
+import de.lumemedia.translation.persistence.ChangeTracker;
+import de.lumemedia.translation.persistence.DualLanguageStore;
+import de.lumemedia.translation.persistence.EmbeddedLanguageStore;
+import de.lumemedia.translation.persistence.FingerprintStore;
+import de.lumemedia.translation.persistence.LanguageStore;
+import de.lumemedia.translation.persistence.SplitLanguageStore;
+import de.lumemedia.translation.persistence.PoolType;
+import de.lumemedia.translation.persistence.SnapshotStore;
+import de.lumemedia.translation.persistence.WriteBehindFlusher;
 import de.lumemedia.translation.serialize.LanguageSerializer;
 import de.lumemedia.translation.serialize.MultiFolderContentPoolSerializer;
 import de.lumemedia.translation.serialize.UnsortedContentPoolSerializer;
@@ -44,22 +57,133 @@ import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Function;
 import java.util.function.Predicate;
 
 public class DefaultTranslationAPI implements TranslationAPI {
     protected final MongoCollection<Document> mongoCollection;
-    protected final List<Language> cachedLanguages = new ArrayList<>();
-    protected final List<FolderMessageRepository> folderRepositories = new ArrayList<>();
-    protected final List<UnsortedMessageRepository> unsortedRepositories = new ArrayList<>();
+    protected final Object writeLock = new Object();
+    protected volatile Catalog catalog = Catalog.EMPTY;
+    // Repositories survive catalog swaps and look their pools up in the current catalog
+    protected final RepositoryRegistry repositoryRegistry = new RepositoryRegistry(() -> this.catalog);
     protected final UnsortedContentPoolSerializer unsortedContentPoolSerializer = new UnsortedContentPoolSerializer();
     protected final MultiFolderContentPoolSerializer multiFolderContentPoolSerializer = new MultiFolderContentPoolSerializer();
     protected final LanguageSerializer languageSerializer = new LanguageSerializer(unsortedContentPoolSerializer, multiFolderContentPoolSerializer);
+    protected final ChangeTracker changeTracker = new ChangeTracker();
+    protected final LanguageStore languageStore;
+    protected final ScheduledExecutorService scheduler;
+    protected final ScheduledExecutorService flushScheduler;
+    protected final WriteBehindFlusher writeBehindFlusher;
+    protected final BroadcastCoalescer broadcastCoalescer;
+    protected final SnapshotStore snapshotStore;
+    protected final FingerprintStore fingerprintStore;
+    protected final TranslationOptions options;
+    protected final String nodeId = UUID.randomUUID().toString();
+    protected final Object broadcastLock = new Object();
+    protected final Map<String, Long> peerRevisions = new ConcurrentHashMap<>();
+    // Reloads are numbered apart from the delta chain, by a sequence of their own per origin
+    protected final Map<String, Long> peerReloadRevisions = new ConcurrentHashMap<>();
+    protected long lastBroadcastRevision;
     protected TranslationNetworkManager translationNetworkManager;
 
     public DefaultTranslationAPI(MongoCollection<Document> mongoCollection) {
+        // Callers of this constructor predate write-behind and may never flush, so every change is written right away
+        this(mongoCollection, TranslationOptions.builder().writeBehind(false).build());
+    }
+
+    public DefaultTranslationAPI(MongoCollection<Document> mongoCollection, TranslationOptions options) {
+        this(null, mongoCollection, options);
+    }
+
+    /**
+     * Creates the API on top of the given storage layout, e.g. a {@link SplitLanguageStore}, or a
+     * {@link DualLanguageStore} while the languages are migrated.
+     *
+     * @param languageStore The storage layout of the languages.
+     * @param options       The options of the API.
+     */
+    public DefaultTranslationAPI(LanguageStore languageStore, TranslationOptions options) {
+        this(languageStore, languageStore.languageCollection(), options);
+    }
+
+    private DefaultTranslationAPI(LanguageStore languageStore, MongoCollection<Document> mongoCollection, TranslationOptions options) {
         this.mongoCollection = mongoCollection;
-        this.initLanguages();
+        this.options = options;
+        this.languageStore = languageStore != null
+                ? languageStore
+                : new EmbeddedLanguageStore(mongoCollection, unsortedContentPoolSerializer, multiFolderContentPoolSerializer, options);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(options.flushThreadFactory());
+        // Flushes get a thread of their own, so broadcasts, snapshots and reloads never hold them up
+        this.flushScheduler = Executors.newSingleThreadScheduledExecutor(options.flushThreadFactory());
+        this.writeBehindFlusher = new WriteBehindFlusher(this.changeTracker, this::updateDatabase, options, this.flushScheduler);
+        this.broadcastCoalescer = new BroadcastCoalescer(this.scheduler, options.broadcastDelay(), () -> this.catalog.revision(), this::sendReload);
+        this.snapshotStore = options.snapshotFile() == null ? null : new SnapshotStore(options.snapshotFile());
+        this.fingerprintStore = options.fingerprintCollection() == null ? null : new FingerprintStore(options.fingerprintCollection());
+
+        // The render cache and the fallback setting are handed from each catalog to its successors
+        this.catalog = new Catalog(List.of(), 0,
+                options.renderCacheSize() > 0 ? new RenderCache(options.renderCacheSize(), options.renderCacheWeight()) : null,
+                options.fallbackChains());
+
+        // Serve the local snapshot if there is one, otherwise block on the database
+        if (!this.loadSnapshot()) {
+            this.initLanguages();
+        }
+    }
+
+    /**
+     * Publishes the languages of the local snapshot and reconciles them with the database in the background.
+     *
+     * @return true if the snapshot was loaded, false if there is none.
+     */
+    protected boolean loadSnapshot() {
+        if (this.snapshotStore == null) {
+            return false;
+        }
+        var languages = this.snapshotStore.read(this.options.lazyPools() ? this.languageStore : null);
+        if (languages == null || languages.isEmpty()) {
+            return false;
+        }
+
+        synchronized (this.writeLock) {
+            this.catalog = this.catalog.withLanguages(languages);
+        }
+
+        // The conditional reload only fetches the languages whose revision moved since the snapshot was written
+        this.scheduler.execute(() -> {
+            try {
+                this.reload();
+            } catch (Exception exception) {
+                exception.printStackTrace();
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Writes the current catalog to the local snapshot on the scheduler thread.
+     */
+    protected void writeSnapshot() {
+        if (this.snapshotStore == null || this.scheduler.isShutdown()) {
+            return;
+        }
+        this.scheduler.execute(() -> {
+            try {
+                this.snapshotStore.write(this.catalog);
+            } catch (Exception exception) {
+                exception.printStackTrace();
+            }
+        });
     }
 
     @Override
@@ -67,113 +191,88 @@ public class DefaultTranslationAPI implements TranslationAPI {
         this.translationNetworkManager = new TranslationNetworkManager(nettyClient);
     }
 
+    @Override
+    public Catalog catalog() {
+        return this.catalog;
+    }
+
     @Override
     public List<Language> cachedLanguages() {
-        return cachedLanguages;
+        return this.catalog.languages();
     }
 
     @Override
     public List<UnsortedMessageRepository> unsortedRepositories() {
-        return unsortedRepositories;
+        return this.repositoryRegistry.unsortedRepositories();
     }
 
     @Override
     public List<FolderMessageRepository> folderRepositories() {
-        return folderRepositories;
+        return this.repositoryRegistry.folderRepositories();
     }
 
     @Override
     public FolderMessageRepository repositoryOf(@NotNull Language language, @NotNull String pool, @NotNull String multiKey) {
-        // Filter the existing folderMessageRepositories to find a match based on Language, pool name, and multi-key
-        FolderMessageRepository receiver = this.folderRepositories.stream().filter(messageReceiver ->
-                        messageReceiver.key().equalsIgnoreCase(language.name()) &&
-                                messageReceiver.multiFolderContentPool().poolMame().equalsIgnoreCase(pool) &&
-                                messageReceiver.multiKey().equalsIgnoreCase(multiKey))
-                .findFirst()
-                .orElse(null);
-
-        // If no existing repository is found, register a new one
-        if (receiver == null) {
-            return this.registerMessageRepo(language, pool, multiKey);
-        }
-
-        // Return the found or newly registered repository
-        return receiver;
+        // Look up the repository by its normalized (language, pool, multi-key) key, registering it if absent
+        return this.repositoryRegistry.folder(language, pool, multiKey);
     }
 
     @Override
     public UnsortedMessageRepository repositoryOf(@NotNull Language language, @NotNull String pool) {
-        // Filter the existing singleMessageRepositories to find a match based on Language and pool name
-        UnsortedMessageRepository receiver = this.unsortedRepositories.stream().filter(messageReceiver ->
-                        messageReceiver.key().equalsIgnoreCase(language.name()) &&
-                                messageReceiver.unsortedContentPool().poolMame().equalsIgnoreCase(pool))
-                .findFirst()
-                .orElse(null);
-
-        // If no existing repository is found, register a new one
-        if (receiver == null) {
-            return this.registerMessageRepo(language, pool);
-        }
-
-        // Return the found or newly registered repository
-        return receiver;
+        // Look up the repository by its normalized (language, pool) key, registering it if absent
+        return this.repositoryRegistry.unsorted(language, pool);
     }
 
     @Override
     public FolderMessageRepository registerMessageRepo(@NotNull Language language, @NotNull String pool, @NotNull String multiKey) {
-        // Filter the existing folderMessageRepositories to find a match based on Language, pool name, and multi-key
-        FolderMessageRepository receiver = this.folderRepositories.stream().filter(messageReceiver ->
-                        messageReceiver.key().equalsIgnoreCase(language.name()) &&
-                                messageReceiver.multiFolderContentPool().poolMame().equalsIgnoreCase(pool) &&
-                                messageReceiver.multiKey().equalsIgnoreCase(multiKey))
-                .findFirst()
-                .orElse(null);
-
-        // If no existing repository is found, create a new one and add it to the list
-        if (receiver == null) {
-            receiver = new FolderMessageRepository(language.name(), multiKey, language.folder(pool));
-            this.folderRepositories.add(receiver);
-        }
-
-        // Return the found or newly created repository
-        return receiver;
+        // The registry creates the repository atomically, so concurrent registrations share one instance
+        return this.repositoryRegistry.folder(language, pool, multiKey);
     }
 
     @Override
     public UnsortedMessageRepository registerMessageRepo(@NotNull Language language, @NotNull String pool) {
-        // Filter the existing singleMessageRepositories to find a match based on Language and pool name
-        UnsortedMessageRepository receiver = this.unsortedRepositories.stream().filter(messageReceiver ->
-                        messageReceiver.key().equalsIgnoreCase(language.name()) &&
-                                messageReceiver.unsortedContentPool().poolMame().equalsIgnoreCase(pool))
-                .findFirst()
-                .orElse(null);
+        // The registry creates the repository atomically, so concurrent registrations share one instance
+        return this.repositoryRegistry.unsorted(language, pool);
+    }
 
-        // If no existing repository is found, create a new one and add it to the list
-        if (receiver == null) {
-            receiver = new UnsortedMessageRepository(language.name(), language.unsorted(pool));
-            this.unsortedRepositories.add(receiver);
-        }
+    @Override
+    public <R> AudienceMessage<R> render(@NotNull Collection<? extends R> recipients,
+                                         @NotNull Function<? super R, Language> language,
+                                         @NotNull MessageHandle message,
+                                         Object... objects) {
+        // Render against one catalog, so recipients without a language fall back to a consistent default
+        var catalog = this.catalog;
+        var defaultLanguages = catalog.defaultLanguages();
+        return AudienceMessage.render(recipients, language, catalog, defaultLanguages.isEmpty() ? null : defaultLanguages.get(0), message, objects);
+    }
 
-        // Return the found or newly created repository
-        return receiver;
+    @Override
+    public Language resolveLanguage(@NotNull String tag) {
+        // The index is built with the catalog, so it always matches the published languages
+        return this.catalog.languageIndex().negotiate(tag);
     }
 
     @Override
     public List<Language> defaultLanguages() {
-        // Filter the loaded languages to find those marked as default
-        return this.cachedLanguages.stream().filter(Language::isDefault).toList();
+        // The catalog keeps the default languages precomputed
+        return this.catalog.defaultLanguages();
+    }
+
+    @Override
+    public FingerprintStore contentFingerprints() {
+        return this.fingerprintStore;
     }
 
     @Override
     public Language getLanguage(String s) {
-        // Find the language in the loaded languages based on its name
-        return this.cachedLanguages.stream().filter(language -> language.name().equalsIgnoreCase(s)).findFirst().orElse(null);
+        // Look up the language in the current catalog based on its name
+        return s == null ? null : this.catalog.language(s);
     }
 
     @Override
     public Language getLanguage(@NotNull Predicate<Language> predicate) {
         // Find the language in the loaded languages based on the provided predicate
-        return this.cachedLanguages.stream().filter(predicate).findFirst().orElse(null);
+        return this.catalog.languages().stream().filter(predicate).findFirst().orElse(null);
     }
 
     @Override
@@ -232,121 +331,134 @@ public class DefaultTranslationAPI implements TranslationAPI {
 
     @Override
     public void injectContent(@NotNull String poolName, @NotNull String folderName, @NotNull List<Folder> folders) {
-        // Flag to track if an update is needed
-        var needUpdate = false;
-
-        // Iterate through loaded languages
-        for (var language : this.cachedLanguages) {
-            var newPool = false;
-            var newMessage = false;
-
-            // Get or create the multiFolderContentPool for the specified poolName
-            var multiFolderContentPool = language.folder(poolName);
-            if (multiFolderContentPool == null) {
-                newPool = true;
-                multiFolderContentPool = new MultiFolderContentPool(poolName);
-            }
-
-            // Get or create the folder for the specified folderName
-            var folder = multiFolderContentPool
-                    .folders()
-                    .stream()
-                    .filter(contents -> contents.key().equalsIgnoreCase(folderName))
-                    .findFirst()
-                    .orElse(new Folder(folderName));
-
-            // Iterate through the provided folders
-            for (var content : folders) {
-                // Skip empty or invalid content
-                if (content.key().isEmpty() || content.rows().isEmpty()) {
-                    continue;
-                }
-
-                // Iterate through the rows of the content and add new messages to the folder
-                for (var row : content.rows()) {
-                    if (folder.rows()
-                            .stream()
-                            .noneMatch(languageContent -> languageContent.key().equalsIgnoreCase(row.key()))) {
-                        newMessage = true;
-                        folder.rows().add(row);
-                    }
-                }
-            }
-
-            // Update the multiFolderContentPool if new messages are added
-            if (newMessage) {
-                if (folder.rows().isEmpty()) continue;
-                multiFolderContentPool.folders().add(folder);
-                needUpdate = true;
-            }
-
-            // Update the language with the new multiFolderContentPool if created
-            if (newPool) {
-                language.multiFolderContentPools().add(multiFolderContentPool);
-                needUpdate = true;
+        // Stage the rows of all valid folders under the target folder name
+        var batch = new ContentBatch();
+        batch.folder(poolName, folderName, List.of());
+        for (var content : folders) {
+            // Skip empty or invalid content
+            if (content.key().isEmpty() || content.rows().isEmpty()) {
+                continue;
             }
+            batch.folder(poolName, folderName, content.rows());
         }
 
-        // Trigger an asynchronous database update if needed
-        if (needUpdate) {
-            this.updateDatabase();
-            this.sendUpdate();
-        }
+        // Delegate to the bulk version of injectContent
+        this.injectContent(batch);
     }
 
     @Override
     public void injectContent(@NotNull String poolName, @NotNull List<Input> entryList) {
-        // Flag to track if any change is made
+        // Delegate to the bulk version of injectContent
+        this.injectContent(new ContentBatch().unsorted(poolName, entryList));
+    }
+
+    @Override
+    public CompletableFuture<Void> injectContent(@NotNull ContentBatch batch) {
+        // Flags to track if the catalog changed and if any content was added
+        var changed = false;
         var anyChange = false;
 
-        // Iterate through loaded languages
-        for (Language language : this.cachedLanguages) {
-            // Get or create the unsortedContentPool for the specified poolName
-            UnsortedContentPool unsortedContentPool = language
-                    .unsortedContentPools()
-                    .stream()
-                    .filter(languagePool -> languagePool.poolMame().equalsIgnoreCase(poolName))
-                    .findFirst()
-                    .orElseGet(() -> {
-                        var newPool = new UnsortedContentPool(poolName);
-                        language.unsortedContentPools().add(newPool);
-                        return newPool;
-                    });
-
-            // Iterate through the provided list of ContentTemplate
-            for (Input input : entryList) {
-                // Skip existing content or invalid content
-                if (unsortedContentPool.inputs()
-                        .stream()
-                        .noneMatch(languageContent1 -> languageContent1.key()
-                                .equalsIgnoreCase(input.key()))
-                        && !(input.key().isEmpty() && input.raw().isEmpty())) {
-                    anyChange = true;
-                    unsortedContentPool.inputs().add(input);
+        // Writers are serialized, readers keep using the published catalog until the swap
+        synchronized (this.writeLock) {
+            var current = this.catalog;
+            var languages = new ArrayList<Language>(current.languages().size());
+            var changes = new ChangeSet();
+
+            // Merge the whole batch into each language in a single pass
+            for (var language : current.languages()) {
+                var updated = language;
+
+                for (var stagedPool : batch.folderPools()) {
+                    var existingPool = updated.folder(stagedPool.poolMame());
+                    var poolChanges = changes.language(language.name()).pool(PoolType.FOLDER, stagedPool.poolMame());
+                    MultiFolderContentPool pool = null;
+
+                    for (var stagedFolder : stagedPool.folders()) {
+                        var existingFolder = existingPool == null ? null : existingPool.folder(stagedFolder.key());
+                        Folder folder = null;
+
+                        // Add the rows which are not yet part of the folder
+                        for (var row : stagedFolder.rows()) {
+                            if (existingFolder != null && existingFolder.row(row.key()) != null) {
+                                continue;
+                            }
+                            if (folder == null) {
+                                folder = existingFolder == null ? Folder.of(stagedPool.poolMame(), stagedFolder.key()) : existingFolder.copy();
+                            }
+                            folder.rows().add(row);
+                            poolChanges.keys().add(new ChangeSet.ContentKey(stagedFolder.key(), row.key()));
+                        }
+
+                        // Copy the pool once and put the changed folder, all other folders are shared
+                        if (folder != null) {
+                            if (pool == null) {
+                                pool = existingPool == null
+                                        ? new MultiFolderContentPool(stagedPool.poolMame())
+                                        : existingPool.copy();
+                            }
+                            pool.folders().put(folder);
+                        }
+                    }
+
+                    // Pools are created in every language, even if no content is new
+                    if (existingPool == null) {
+                        poolChanges.markCreated();
+                        if (pool == null) {
+                            pool = new MultiFolderContentPool(stagedPool.poolMame());
+                        }
+                    }
+                    if (pool != null) {
+                        updated = updated.withFolderPool(pool);
+                    }
                 }
+
+                for (var stagedPool : batch.unsortedPools()) {
+                    var existingPool = updated.unsorted(stagedPool.poolMame());
+                    var poolChanges = changes.language(language.name()).pool(PoolType.UNSORTED, stagedPool.poolMame());
+                    var added = new ArrayList<Input>();
+
+                    // Add the content which is not yet part of the pool
+                    for (var input : stagedPool.inputs()) {
+                        if (existingPool == null || existingPool.input(input.key()) == null) {
+                            added.add(input);
+                            poolChanges.keys().add(new ChangeSet.ContentKey("", input.key()));
+                        }
+                    }
+
+                    // Pools are created in every language, even if no content is new
+                    if (existingPool == null) {
+                        poolChanges.markCreated();
+                        existingPool = new UnsortedContentPool(stagedPool.poolMame());
+                    } else if (added.isEmpty()) {
+                        continue;
+                    }
+                    updated = updated.withUnsortedPool(existingPool.withInputs(added));
+                }
+
+                languages.add(updated);
+                changed |= updated != language;
             }
-        }
 
-        // Trigger an asynchronous database update if any change is made
-        if (anyChange) {
-            this.updateDatabase();
-            this.sendUpdate();
+            // Publish the new catalog with a single volatile write, then track what has to be persisted
+            if (changed) {
+                this.catalog = current.withLanguages(languages);
+                this.invalidateRendered(changes);
+                this.changeTracker.track(changes);
+                anyChange = !changes.isEmpty();
+            }
         }
+
+        // Hand the changes to the write-behind flusher, which persists and announces them in one flush
+        return anyChange ? this.writeBehindFlusher.schedule() : CompletableFuture.completedFuture(null);
     }
 
     @Override
     public void initLanguages() {
-        // Clear the list of loaded languages to prepare for new data
-        this.cachedLanguages.clear();
+        // Load all languages off to the side, the current catalog stays visible meanwhile
+        var languages = this.adopt(this.languageStore.load(null));
 
-        // Retrieve all documents from the MongoDB collection
-        List<Document> documents = new ArrayList<>();
-        for (var document : this.mongoCollection.find()) {
-            documents.add(document);
-        }
-
-        // If there are no documents retrieved from the collection, create a backup English language
-        if (documents.isEmpty()) {
+        // If there are no languages stored at all, create a backup English language
+        if (languages.isEmpty() && this.languageStore.revisions(null).isEmpty()) {
             // Define a backup English language object
             var backupLanguage = new Language(
                     "english",
@@ -359,113 +471,313 @@ public class DefaultTranslationAPI implements TranslationAPI {
 
             // Create the backup language in the system
             this.createLanguage(backupLanguage);
+            return;
         }
 
-        // Iterate over the retrieved documents to deserialize and load languages
-        for (var document : documents) {
-            try {
-                // Deserialize each document into a Language object using the languageSerializer
-                var language = this.languageSerializer.deserialize(document);
-
-                // Check if a language with the same name already exists in the loaded languages
-                if (this.cachedLanguages.stream().anyMatch(l -> l.name().equalsIgnoreCase(language.name()))) {
-                    // Skip adding the language if it already exists
-                    continue;
-                }
-
-                // Add the deserialized language to the list of loaded languages
-                this.cachedLanguages.add(language);
-            } catch (Exception exception) {
-                // Print stack trace if deserialization fails for any document
-                exception.printStackTrace();
+        // Publish the loaded languages at once, the catalog skips languages with a duplicate name
+        synchronized (this.writeLock) {
+            this.catalog = this.catalog.withLanguages(languages);
+            if (this.catalog.renderCache() != null) {
+                this.catalog.renderCache().invalidateAll();
             }
         }
+        this.writeSnapshot();
     }
 
     @Override
     public void initLanguage(@NotNull String name) {
-        // Retrieve the document from the MongoDB collection that matches the specified language name
-        var document = this.mongoCollection.find(Filters.eq("name", name)).first();
+        // Load the language that matches the specified name
+        for (var language : this.adopt(this.languageStore.load(List.of(name)))) {
+            synchronized (this.writeLock) {
+                var current = this.catalog;
 
-        // Check if the retrieved document is not null
-        if (document != null) {
-            try {
-                // Deserialize the document into a Language object using the languageSerializer
-                var language = this.languageSerializer.deserialize(document);
-
-                // Check if any loaded language has the same name as the deserialized language
                 // If a language with the same name is already loaded, skip adding it again
-                if (this.cachedLanguages.stream().anyMatch(l -> l.name().equalsIgnoreCase(language.name()))) {
-                    return; // Skip adding the language if it's already loaded
+                if (current.language(language.name()) != null) {
+                    return;
                 }
 
-                // Add the deserialized language to the list of loaded languages
-                this.cachedLanguages.add(language);
-            } catch (Exception exception) {
-                // Handle any exceptions that occur during deserialization
-                exception.printStackTrace(); // Print the stack trace for debugging purposes
+                // Publish a catalog containing the loaded language
+                var languages = new ArrayList<>(current.languages());
+                languages.add(language);
+                this.catalog = current.withLanguages(languages);
             }
+            return;
         }
-
     }
 
     @Override
     public void createLanguage(@NotNull Language language) {
-        // Add the language to the loaded languages list
-        this.cachedLanguages.add(language);
+        // Publish a catalog containing the new language
+        synchronized (this.writeLock) {
+            var languages = new ArrayList<>(this.catalog.languages());
+            languages.add(language);
+            this.catalog = this.catalog.withLanguages(languages);
+        }
 
-        // Insert the language into the MongoDB repository
-        this.mongoCollection.insertOne(this.languageSerializer.serialize(language));
+        // Insert the language into the database
+        this.languageStore.insert(language);
 
         if (this.translationNetworkManager != null) {
             this.translationNetworkManager.nettyClient().thisNetworkChannel().sendPacket(new PacketOutLanguageCreation(language));
         }
 
-        // Trigger an asynchronous database update
-        this.updateDatabase();
-        this.sendUpdate();
+        // The language was inserted as a whole, so the peers only need to reload
+        this.requestReload(false);
     }
 
     @Override
     public void updateDatabase() {
-        // Iterate through each loaded language in the list of loaded languages
-        for (var loadedLanguage : this.cachedLanguages) {
-            // Update the corresponding document in the MongoDB collection for the current language
-            // Use Filters.eq() to create a filter to match documents by the language name field
-            // Use the languageSerializer to serialize the loadedLanguage object into a BSON Document
-            // Use the $set operator to update the fields of the matched document with the serialized language object
-            this.mongoCollection.updateOne(
-                    Filters.eq("name", loadedLanguage.name()), // Filter to match documents by language name
-                    new Document("$set", this.languageSerializer.serialize(loadedLanguage)) // Update operation
-            );
-            if (this.translationNetworkManager != null) {
-                this.translationNetworkManager.nettyClient().thisNetworkChannel().sendPacket(new PacketOutLanguagesReload(new Language().withName("null")));
+        // Take the tracked changes, only the affected messages and pools are written
+        var changes = this.changeTracker.drain();
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        try {
+            // Write all changes as one unordered bulk write with the values of the current catalog
+            this.languageStore.write(changes, this.catalog);
+        } catch (RuntimeException exception) {
+            // Keep the changes, so the next update retries them
+            this.changeTracker.track(changes);
+            throw exception;
+        }
+
+        // Follow the revisions the write incremented, so a reload finds the written languages unchanged
+        synchronized (this.writeLock) {
+            this.catalog = this.catalog.withLanguages(CatalogWriter.advanceRevisions(changes, this.catalog));
+        }
+        this.writeSnapshot();
+
+        // Send only the changed messages to the peers, chained to the previous delta of this node
+        if (this.translationNetworkManager != null) {
+            synchronized (this.broadcastLock) {
+                var delta = ContentDelta.of(this.nodeId, this.lastBroadcastRevision, changes, this.catalog);
+                this.lastBroadcastRevision = delta.revision();
+                this.translationNetworkManager.nettyClient().thisNetworkChannel().sendPacket(new PacketOutContentDelta(delta));
+            }
+        }
+    }
+
+    @Override
+    public void applyDelta(@NotNull ContentDelta delta) {
+        // Ignore deltas sent by this node
+        if (delta.origin().equals(this.nodeId)) {
+            return;
+        }
+
+        // Drop duplicates, and reload everything if a delta of the origin was missed.
+        // The known revision is checked and advanced in one step, so concurrent packets can not both pass
+        var accepted = new boolean[1];
+        var missed = new boolean[1];
+        this.peerRevisions.compute(delta.origin(), (origin, seenRevision) -> {
+            if (seenRevision != null && delta.revision() <= seenRevision) {
+                return seenRevision;
+            }
+            accepted[0] = true;
+            missed[0] = seenRevision != null && delta.baseRevision() > seenRevision;
+            return delta.revision();
+        });
+        if (!accepted[0]) {
+            return;
+        }
+        if (missed[0]) {
+            this.reload();
+            return;
+        }
+
+        // Apply the delta in place, the origin has already persisted it
+        synchronized (this.writeLock) {
+            this.catalog = this.catalog.withLanguages(delta.applyTo(this.catalog));
+            if (this.catalog.renderCache() != null) {
+                for (var entry : delta.entries()) {
+                    this.catalog.renderCache().invalidate(entry.language(), entry.pool());
+                }
             }
         }
     }
 
+    @Override
+    public CompletableFuture<Void> flush() {
+        // Persist everything pending without waiting for the write-behind window to end
+        return this.writeBehindFlusher.flush();
+    }
+
+    @Override
+    public void shutdown() {
+        // Persist everything pending and stop the scheduler threads
+        this.writeBehindFlusher.flush().exceptionally(throwable -> null).join();
+        this.flushScheduler.shutdown();
+        this.scheduler.shutdown();
+    }
+
     @Override
     public void reload() {
-        // Clear the existing list of loaded languages and reinitialize
-        this.cachedLanguages.clear();
-        this.initLanguages();
+        // Read only the name and revision of every language, the content is fetched for changed languages only
+        Map<String, String> names = new HashMap<>();
+        Map<String, Long> revisions = new HashMap<>();
+        this.languageStore.revisions(null).forEach((name, revision) -> {
+            names.put(TextUtil.normalize(name), name);
+            revisions.put(TextUtil.normalize(name), revision);
+        });
+
+        // Nothing stored at all, fall back to the full load which creates the backup language
+        if (revisions.isEmpty()) {
+            this.initLanguages();
+            return;
+        }
+
+        // Collect the languages which are new or carry a different revision than the loaded ones
+        var current = this.catalog;
+        List<String> changed = new ArrayList<>();
+        revisions.forEach((name, revision) -> {
+            var loadedLanguage = current.language(name);
+            if (loadedLanguage == null || loadedLanguage.revision() != revision) {
+                changed.add(names.get(name));
+            }
+        });
+        var removed = current.languages().stream()
+                .anyMatch(language -> !revisions.containsKey(TextUtil.normalize(language.name())));
+
+        // Every language is up to date, keep the current catalog
+        if (changed.isEmpty() && !removed) {
+            return;
+        }
+
+        // Fetch the changed languages off to the side
+        List<Language> languages = changed.isEmpty() ? List.of() : this.adopt(this.languageStore.load(changed));
+
+        // Replace the changed languages, drop the removed ones and publish the new catalog in a single swap
+        this.replaceLanguages(languages, language -> revisions.containsKey(TextUtil.normalize(language.name())));
+        this.writeSnapshot();
     }
 
     @Override
     public void reload(@NotNull String name) {
-        // Remove the language with the specified name from the list and reinitialize
-        this.cachedLanguages.removeIf(language -> language.name().equalsIgnoreCase(name));
-        this.initLanguage(name);
+        // Read only the revision first, an unchanged language does not need to be fetched
+        var revisions = this.languageStore.revisions(List.of(name));
+        var loadedLanguage = this.catalog.language(name);
+        if (loadedLanguage != null && revisions.size() == 1
+                && revisions.values().iterator().next() == loadedLanguage.revision()) {
+            return;
+        }
+
+        // Load the language off to the side, nothing is loaded if it was removed
+        var languages = revisions.isEmpty() ? List.<Language>of() : this.adopt(this.languageStore.load(List.of(name)));
+        if (!revisions.isEmpty() && languages.isEmpty()) {
+            // The language is stored but could not be deserialized, keep the loaded one
+            return;
+        }
+
+        // Replace (or drop) the language and publish the new catalog in a single swap
+        this.replaceLanguages(languages, loaded -> !loaded.name().equalsIgnoreCase(name));
+        this.writeSnapshot();
+    }
+
+    /**
+     * Takes over the pools of the loaded languages which are still current into freshly loaded lazy
+     * languages, so a reload does not fetch them again.
+     *
+     * @param languages The freshly loaded languages.
+     * @return The given languages.
+     */
+    protected List<Language> adopt(@NotNull List<Language> languages) {
+        var current = this.catalog;
+        for (var language : languages) {
+            var previous = current.language(language.name());
+            if (language.lazyPools() != null && previous != null) {
+                language.lazyPools().adopt(previous);
+            }
+        }
+        return languages;
+    }
+
+    /**
+     * Drops the rendered messages of the pools affected by the given changes.
+     *
+     * @param changes The changes which were published.
+     */
+    protected void invalidateRendered(@NotNull ChangeSet changes) {
+        var renderCache = this.catalog.renderCache();
+        if (renderCache == null) {
+            return;
+        }
+        for (var languageChanges : changes.languages()) {
+            for (var poolChanges : languageChanges.pools().values()) {
+                renderCache.invalidate(languageChanges.name(), poolChanges.pool());
+            }
+        }
+    }
+
+    private void replaceLanguages(@NotNull List<Language> replacements, @NotNull Predicate<Language> keep) {
+        Map<String, Language> byName = new LinkedHashMap<>();
+        for (var replacement : replacements) {
+            byName.putIfAbsent(TextUtil.normalize(replacement.name()), replacement);
+        }
+
+        synchronized (this.writeLock) {
+            var current = this.catalog;
+            var languages = new ArrayList<Language>(current.languages().size() + byName.size());
+            for (var loadedLanguage : current.languages()) {
+                // Replaced languages keep their position in the catalog
+                var replacement = byName.remove(TextUtil.normalize(loadedLanguage.name()));
+                if (replacement != null) {
+                    languages.add(replacement);
+                } else if (keep.test(loadedLanguage)) {
+                    languages.add(loadedLanguage);
+                    continue;
+                }
+
+                // Rendered messages of replaced and removed languages are dropped
+                if (current.renderCache() != null) {
+                    current.renderCache().invalidateLanguage(loadedLanguage.name());
+                }
+            }
+            languages.addAll(byName.values());
+            this.catalog = current.withLanguages(languages);
+        }
     }
 
     @Override
     public void sendUpdate() {
-        // Check if the networkClient is not null
+        // An explicit update always reaches the peers, e.g. after the database was edited directly
+        this.requestReload(true);
+    }
+
+    /**
+     * Requests a reload broadcast. All requests within the broadcast window are merged into one packet.
+     *
+     * @param force Whether the broadcast is sent even if the catalog did not change since the last one.
+     */
+    protected void requestReload(boolean force) {
+        if (this.translationNetworkManager != null) {
+            this.broadcastCoalescer.request(force);
+        }
+    }
+
+    @Override
+    public void handleReload(@NotNull String origin, long revision) {
+        // Ignore broadcasts of this node and broadcasts which are not newer than the last reload of the origin
+        if (origin.equals(this.nodeId)) {
+            return;
+        }
+        var accepted = new boolean[1];
+        this.peerReloadRevisions.compute(origin, (key, seenRevision) -> {
+            if (seenRevision != null && revision <= seenRevision) {
+                return seenRevision;
+            }
+            accepted[0] = true;
+            return revision;
+        });
+        if (accepted[0]) {
+            this.reload();
+        }
+    }
+
+    protected void sendReload(long revision) {
+        // The ReloadLanguagesPacket triggers a reload of all languages on the network, tagged with the broadcast sequence number
         if (this.translationNetworkManager != null) {
-            // If networkClient is not null, send a ReloadLanguagesPacket through its networkChannel
-            // The ReloadLanguagesPacket is used to trigger a reload of languages on the network
             this.translationNetworkManager.nettyClient().thisNetworkChannel().sendPacket(new PacketOutLanguagesReload(
-                    new Language().withName("null")
+                    new Language().withName("null"), this.nodeId, revision
             ));
         }
     }
@@ -0,0 +1,240 @@
+package de.lumemedia.translation;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.RandomAccess;
+
+/*
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * An ordered list which keeps a case-insensitive key index of its elements.
+ * <p>
+ * Every mutation, including the ones made through {@link #iterator()} or {@link #subList(int, int)},
+ * keeps the index consistent, so {@link #find(String)} behaves like a linear scan with
+ * {@link String#equalsIgnoreCase(String)} returning the first match, but runs in constant time.
+ * <p>
+ * Lists reachable from a published {@link Catalog} are {@linkplain #freeze() frozen} and reject every
+ * mutation, so concurrent readers never observe a change. Writers mutate a copy instead.
+ *
+ * @param <E> The element type.
+ */
+public class IndexedList<E extends Keyed> extends AbstractList<E> implements RandomAccess, Serializable {
+
+    private final ArrayList<E> elements;
+    // The position of the first element of each key, so keyed mutations do not search the list
+    private final HashMap<String, Slot> index;
+    // Set before the list is published, every mutation is rejected from then on
+    private boolean frozen;
+
+    public IndexedList() {
+        this.elements = new ArrayList<>();
+        this.index = new HashMap<>();
+    }
+
+    public IndexedList(@NotNull Collection<? extends E> elements) {
+        this.elements = new ArrayList<>(elements.size());
+        this.index = new HashMap<>(Math.max(16, (int) (elements.size() / 0.75f) + 1));
+        this.addAll(elements);
+    }
+
+    /**
+     * Finds the first element whose key equals the given key, ignoring case.
+     *
+     * @param key The key to look up.
+     * @return The matching element, or null if none exists.
+     */
+    public E find(@NotNull String key) {
+        var slot = this.index.get(TextUtil.normalize(key));
+        return slot == null ? null : this.elements.get(slot.position);
+    }
+
+    /**
+     * Checks whether an element with the given key exists, ignoring case.
+     *
+     * @param key The key to look up.
+     * @return True if an element with the key exists.
+     */
+    public boolean containsKey(@NotNull String key) {
+        return this.index.containsKey(TextUtil.normalize(key));
+    }
+
+    /**
+     * Replaces the first element with the same key, ignoring case, or appends the element if there is none.
+     *
+     * @param element The element to put.
+     * @return The replaced element, or null if the element was appended.
+     */
+    public E put(@NotNull E element) {
+        var slot = this.index.get(TextUtil.normalize(element.key()));
+        if (slot == null) {
+            this.add(element);
+            return null;
+        }
+        return this.set(slot.position, element);
+    }
+
+    /**
+     * Removes the first element with the given key, ignoring case.
+     *
+     * @param key The key of the element to remove.
+     * @return The removed element, or null if there was none.
+     */
+    public E removeKey(@NotNull String key) {
+        var slot = this.index.get(TextUtil.normalize(key));
+        if (slot == null) {
+            return null;
+        }
+        return this.remove(slot.position);
+    }
+
+    /**
+     * Makes this list read-only. Called before the list is published with a catalog.
+     */
+    public void freeze() {
+        this.frozen = true;
+    }
+
+    /**
+     * @return True if this list is read-only.
+     */
+    public boolean isFrozen() {
+        return this.frozen;
+    }
+
+    /**
+     * Rejects a mutation of a frozen list. Subclasses call this before touching any of their own state.
+     */
+    protected void checkMutable() {
+        if (this.frozen) {
+            throw new UnsupportedOperationException("The list belongs to a published catalog and can not be modified");
+        }
+    }
+
+    @Override
+    public E get(int i) {
+        return this.elements.get(i);
+    }
+
+    @Override
+    public int size() {
+        return this.elements.size();
+    }
+
+    @Override
+    public E set(int i, E element) {
+        this.checkMutable();
+        var previous = this.elements.set(i, element);
+
+        // Replacing an element by one of the same key keeps the index as it is
+        if (!previous.key().equalsIgnoreCase(element.key())) {
+            this.unindex(previous.key(), i);
+            this.index(element.key(), i);
+        }
+        return previous;
+    }
+
+    @Override
+    public void add(int i, E element) {
+        this.checkMutable();
+        var appended = i == this.elements.size();
+        this.elements.add(i, element);
+        this.modCount++;
+
+        // Appending can never displace an earlier element with the same key
+        if (!appended) {
+            this.shift(i, 1);
+        }
+        this.index(element.key(), i);
+    }
+
+    @Override
+    public E remove(int i) {
+        this.checkMutable();
+        var removed = this.elements.remove(i);
+        this.modCount++;
+
+        // The following elements moved up by one, the removed key falls back to its next duplicate if any
+        var normalized = TextUtil.normalize(removed.key());
+        var slot = this.index.get(normalized);
+        if (slot.position == i) {
+            this.index.remove(normalized);
+            this.shift(i, -1);
+            this.reindex(removed.key(), i);
+        } else {
+            this.shift(i, -1);
+        }
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        this.checkMutable();
+        this.elements.clear();
+        this.index.clear();
+        this.modCount++;
+    }
+
+    private void index(@NotNull String key, int i) {
+        var slot = this.index.get(TextUtil.normalize(key));
+        if (slot == null) {
+            this.index.put(TextUtil.normalize(key), new Slot(i));
+        } else if (slot.position > i) {
+            slot.position = i;
+        }
+    }
+
+    private void unindex(@NotNull String key, int i) {
+        var normalized = TextUtil.normalize(key);
+        if (this.index.get(normalized).position == i) {
+            this.index.remove(normalized);
+            this.reindex(key, i + 1);
+        }
+    }
+
+    private void shift(int from, int delta) {
+        // Only positions change, so the slots are adjusted without touching the hash table
+        for (var slot : this.index.values()) {
+            if (slot.position >= from && (delta > 0 || slot.position > from)) {
+                slot.position += delta;
+            }
+        }
+    }
+
+    private void reindex(@NotNull String key, int from) {
+        // A key is only indexed at its first element, so a later duplicate can only follow the given position
+        for (var i = from; i < this.elements.size(); i++) {
+            if (this.elements.get(i).key().equalsIgnoreCase(key)) {
+                this.index.put(TextUtil.normalize(key), new Slot(i));
+                return;
+            }
+        }
+    }
+
+    private static final class Slot implements Serializable {
+
+        private int position;
+
+        private Slot(int position) {
+            this.position = position;
+        }
+    }
+}
@@ -19,5 +19,9 @@ import java.io.Serializable;
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-public record Input(@NotNull String key, String raw) implements Serializable {
-}
\ No newline at end of file
+public record Input(@NotNull String key, String raw, MessageTemplate template) implements Keyed, Serializable {
+
+    public Input(@NotNull String key, String raw) {
+        this(key, raw, MessageTemplate.compile(raw));
+    }
+}
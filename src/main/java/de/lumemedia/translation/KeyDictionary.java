@@ -0,0 +1,150 @@
+package de.lumemedia.translation;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * The message keys of one unsorted pool or one folder, shared by every language.
+ * <p>
+ * Each case-insensitive key is assigned a stable int id on first use, so the {@link ColumnarInputList
+ * content lists} of all languages can address their values by id instead of storing the key again. The
+ * dictionary also remembers the first value stored for each key, which lets identical values of other
+ * languages, typically untranslated copies, share the same string and compiled template.
+ * <p>
+ * Dictionaries are never shrunk; keys which were removed from every language keep their id.
+ */
+public final class KeyDictionary {
+
+    private static final ConcurrentHashMap<String, KeyDictionary> DICTIONARIES = new ConcurrentHashMap<>();
+    private static final AtomicInteger SCOPES = new AtomicInteger();
+
+    private final int scope = SCOPES.getAndIncrement();
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile Entry[] entries = new Entry[16];
+    private int size;
+
+    private KeyDictionary() {
+    }
+
+    /**
+     * @param pool The name of the unsorted pool.
+     * @return The dictionary of the unsorted pool, shared by all languages.
+     */
+    public static KeyDictionary unsorted(@NotNull String pool) {
+        return DICTIONARIES.computeIfAbsent("unsorted\n" + TextUtil.normalize(pool), s -> new KeyDictionary());
+    }
+
+    /**
+     * @param pool   The name of the folder pool.
+     * @param folder The key of the folder within the pool.
+     * @return The dictionary of the folder, shared by all languages.
+     */
+    public static KeyDictionary folder(@NotNull String pool, @NotNull String folder) {
+        return DICTIONARIES.computeIfAbsent("folder\n" + TextUtil.normalize(pool) + '\n' + TextUtil.normalize(folder),
+                s -> new KeyDictionary());
+    }
+
+    /**
+     * @return The sequential number of this dictionary, identifying its pool or folder within the process.
+     */
+    int scope() {
+        return this.scope;
+    }
+
+    /**
+     * Looks up the id of a key, ignoring case, without assigning one.
+     *
+     * @param key The key to look up.
+     * @return The id of the key, or -1 if the key is unknown.
+     */
+    public int find(@NotNull String key) {
+        var id = this.ids.get(TextUtil.normalize(key));
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Retrieves the id of a key, ignoring case, and assigns the next id if the key is unknown.
+     *
+     * @param key The key to look up.
+     * @return The id of the key.
+     */
+    public int id(@NotNull String key) {
+        var normalized = TextUtil.normalize(key);
+        var id = this.ids.get(normalized);
+        if (id != null) {
+            return id;
+        }
+
+        synchronized (this) {
+            id = this.ids.get(normalized);
+            if (id != null) {
+                return id;
+            }
+            var entries = this.entries;
+            if (this.size == entries.length) {
+                entries = Arrays.copyOf(entries, entries.length * 2);
+            }
+            entries[this.size] = new Entry(key);
+
+            // Publish the entry before its id, so every reader of the id sees the entry
+            this.entries = entries;
+            this.ids.put(normalized, this.size);
+            return this.size++;
+        }
+    }
+
+    /**
+     * @param id The id of the key.
+     * @return The key with the case it was first used with.
+     */
+    public String key(int id) {
+        return this.entries[id].key;
+    }
+
+    /**
+     * Returns the first input stored for the key if it has the same value as the given one.
+     *
+     * @param id    The id of the key of the input.
+     * @param input The input to share.
+     * @return The first input of the key if the values are equal, otherwise the given input.
+     */
+    Input share(int id, @NotNull Input input) {
+        var entry = this.entries[id];
+        var shared = entry.shared;
+        if (shared == null) {
+            // Racing first stores are harmless, any of them is a valid value to share
+            entry.shared = input;
+            return input;
+        }
+        return Objects.equals(shared.raw(), input.raw()) ? shared : input;
+    }
+
+    private static final class Entry {
+        private final String key;
+        private volatile Input shared;
+
+        private Entry(String key) {
+            this.key = key;
+        }
+    }
+}
@@ -3,14 +3,18 @@ package de.lumemedia.translation;
 import dev.golgolex.quala.json.JsonObjectSerializer;
 import dev.golgolex.quala.json.document.JsonDocument;
 import dev.golgolex.quala.netty5.protocol.codec.CodecBuffer;
+import lombok.AccessLevel;
 import lombok.Getter;
 import de.lumemedia.translation.folder.Folder;
 import de.lumemedia.translation.folder.MultiFolderContentPool;
+import de.lumemedia.translation.persistence.PoolType;
 import de.lumemedia.translation.unsorted.UnsortedContentPool;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /*
@@ -31,15 +35,82 @@ import java.util.List;
 @Getter
 public class Language implements Serializable {
 
+    private static final IndexedList<Input> NO_CONTENT = new IndexedList<>();
+
     protected String name;
     protected JsonDocument metaData;
     protected String[] tags;
+    // Published languages are shared by concurrent readers, so the pool lists are only exposed as read-only views
+    @Getter(AccessLevel.NONE)
     protected List<UnsortedContentPool> unsortedContentPools;
+    @Getter(AccessLevel.NONE)
     protected List<MultiFolderContentPool> multiFolderContentPools;
     protected boolean defaultLanguage;
+    protected long revision;
+    protected transient LazyPools lazyPools;
+    // The content lists resolved by message handles, indexed by the scope of their key dictionary
+    @Getter(AccessLevel.NONE)
+    private transient volatile IndexedList<?>[] handleContent;
 
+    /**
+     * Creates a copy of this language with another name.
+     *
+     * @param name The name of the copy.
+     * @return The copied language.
+     */
     public Language withName(String name) {
-        this.name = name;
+        var copy = this.copy();
+        copy.name = name;
+        return copy;
+    }
+
+    /**
+     * Creates a copy of this language with another revision.
+     *
+     * @param revision The revision of the copy.
+     * @return The copied language.
+     */
+    public Language withRevision(long revision) {
+        var copy = this.copy();
+        copy.revision = revision;
+        return copy;
+    }
+
+    /**
+     * @return A read-only view of the unsorted pools loaded with this language.
+     */
+    public List<UnsortedContentPool> unsortedContentPools() {
+        return this.unsortedContentPools == null ? List.of() : Collections.unmodifiableList(this.unsortedContentPools);
+    }
+
+    /**
+     * @return A read-only view of the multi-folder pools loaded with this language.
+     */
+    public List<MultiFolderContentPool> multiFolderContentPools() {
+        return this.multiFolderContentPools == null ? List.of() : Collections.unmodifiableList(this.multiFolderContentPools);
+    }
+
+    /**
+     * Makes the loaded pools of this language read-only. Called before the language is published with a
+     * catalog, pools fetched later on are frozen when they are fetched.
+     */
+    public void freeze() {
+        for (var pool : this.unsortedContentPools()) {
+            pool.freeze();
+        }
+        for (var pool : this.multiFolderContentPools()) {
+            pool.freeze();
+        }
+    }
+
+    /**
+     * Attaches the pools which are fetched on first access. Only used while the language is built.
+     *
+     * @param lazyPools The lazily fetched pools, or null if all pools are loaded.
+     * @return This language.
+     */
+    public Language withLazyPools(LazyPools lazyPools) {
+        this.lazyPools = lazyPools;
         return this;
     }
 
@@ -64,55 +135,175 @@ public class Language implements Serializable {
         this.defaultLanguage = defaultLanguage;
     }
 
+    public Language(@NotNull String name,
+                    @NotNull JsonDocument metaData,
+                    @NotNull String[] tags,
+                    @NotNull List<UnsortedContentPool> unsortedContentPools,
+                    @NotNull List<MultiFolderContentPool> multiFolderContentPools,
+                    boolean defaultLanguage,
+                    long revision) {
+        this(name, metaData, tags, unsortedContentPools, multiFolderContentPools, defaultLanguage);
+        this.revision = revision;
+    }
+
     public void readBuf(@NotNull CodecBuffer codecBuffer) {
         this.name = codecBuffer.readString();
         this.metaData = new JsonDocument(codecBuffer.readJsonDocument().jsonObject());
         this.defaultLanguage = codecBuffer.readBoolean();
+        this.revision = codecBuffer.readLong();
 
         this.unsortedContentPools = codecBuffer.readList(new ArrayList<>(), () -> {
             var poolName = codecBuffer.readString();
+            var poolRevision = codecBuffer.readLong();
             var contents = codecBuffer.readList(new ArrayList<>(), () -> new Input(
                     codecBuffer.readString(),
                     codecBuffer.readString()
             ));
-            return new UnsortedContentPool(poolName, new ArrayList<>(contents));
+            return new UnsortedContentPool(poolName, new ArrayList<>(contents), poolRevision);
         });
 
         this.multiFolderContentPools = codecBuffer.readList(new ArrayList<>(), () -> {
             var poolName = codecBuffer.readString();
+            var poolRevision = codecBuffer.readLong();
             var folders = codecBuffer.readList(new ArrayList<>(), () -> {
                 var key = codecBuffer.readString();
                 var contents = codecBuffer.readList(new ArrayList<>(), () -> new Input(
                         codecBuffer.readString(),
                         codecBuffer.readString()
                 ));
-                var folder = new Folder(key);
+                var folder = Folder.of(poolName, key);
                 folder.rows().addAll(contents);
                 return folder;
             });
-            return new MultiFolderContentPool(poolName, new ArrayList<>(folders));
+            return new MultiFolderContentPool(poolName, new ArrayList<>(folders), poolRevision);
         });
     }
 
     public void writeBuf(@NotNull CodecBuffer codecBuffer) {
         codecBuffer.writeString(this.name)
                 .writeJsonDocument(new JsonObjectSerializer(this.metaData.jsonObject()))
-                .writeBoolean(this.defaultLanguage);
+                .writeBoolean(this.defaultLanguage)
+                .writeLong(this.revision);
 
         codecBuffer.writeList(this.unsortedContentPools, (listBuf, unsortedContentPool) -> listBuf.writeString(unsortedContentPool.poolMame())
+                .writeLong(unsortedContentPool.revision())
                 .writeList(unsortedContentPool.inputs(), (valBuf, contentTemplate) -> valBuf.writeString(contentTemplate.key())
                         .writeString(contentTemplate.raw())));
         codecBuffer.writeList(this.multiFolderContentPools, (listBuf, multiFolderContentPool) -> listBuf.writeString(multiFolderContentPool.poolMame())
+                .writeLong(multiFolderContentPool.revision())
                 .writeList(multiFolderContentPool.folders(), (folderBuf, folder) -> folderBuf.writeString(folder.key())
                         .writeList(folder.rows(), (valBuf, contentTemplate) -> valBuf.writeString(contentTemplate.key())
                                 .writeString(contentTemplate.raw()))));
     }
 
+    /**
+     * Creates a copy of this language which shares its pools but owns its pool lists.
+     *
+     * @return The copied language.
+     */
+    public Language copy() {
+        return new Language(this.name, this.metaData, this.tags,
+                new ArrayList<>(this.unsortedContentPools()),
+                new ArrayList<>(this.multiFolderContentPools()),
+                this.defaultLanguage,
+                this.revision).withLazyPools(this.lazyPools);
+    }
+
+    /**
+     * Creates a copy of this language with the given pool added or replacing the pool of the same name.
+     *
+     * @param pool The pool to put.
+     * @return The copied language.
+     */
+    public Language withFolderPool(@NotNull MultiFolderContentPool pool) {
+        var copy = this.copy();
+        var pools = copy.multiFolderContentPools;
+        for (var i = 0; i < pools.size(); i++) {
+            if (pools.get(i).poolMame().equalsIgnoreCase(pool.poolMame())) {
+                pools.set(i, pool);
+                return copy;
+            }
+        }
+        pools.add(pool);
+        return copy;
+    }
+
+    /**
+     * Creates a copy of this language with the given pool added or replacing the pool of the same name.
+     *
+     * @param pool The pool to put.
+     * @return The copied language.
+     */
+    public Language withUnsortedPool(@NotNull UnsortedContentPool pool) {
+        var copy = this.copy();
+        var pools = copy.unsortedContentPools;
+        for (var i = 0; i < pools.size(); i++) {
+            if (pools.get(i).poolMame().equalsIgnoreCase(pool.poolMame())) {
+                pools.set(i, pool);
+                return copy;
+            }
+        }
+        pools.add(pool);
+        return copy;
+    }
+
     public MultiFolderContentPool folder(@NotNull String s) {
-        return this.multiFolderContentPools.stream().filter(messagePoolImpl -> messagePoolImpl.poolMame().equalsIgnoreCase(s)).findFirst().orElse(null);
+        var pool = this.multiFolderContentPools.stream().filter(messagePoolImpl -> messagePoolImpl.poolMame().equalsIgnoreCase(s)).findFirst().orElse(null);
+        // Pools which were not loaded with the language are fetched on first access
+        return pool == null && this.lazyPools != null ? this.lazyPools.folder(s) : pool;
     }
 
     public UnsortedContentPool unsorted(@NotNull String s) {
-        return this.unsortedContentPools.stream().filter(messagePoolImpl -> messagePoolImpl.poolMame().equalsIgnoreCase(s)).findFirst().orElse(null);
+        var pool = this.unsortedContentPools.stream().filter(messagePoolImpl -> messagePoolImpl.poolMame().equalsIgnoreCase(s)).findFirst().orElse(null);
+        // Pools which were not loaded with the language are fetched on first access
+        return pool == null && this.lazyPools != null ? this.lazyPools.unsorted(s) : pool;
+    }
+
+    /**
+     * Resolves the content list a handle addresses. The result is kept in this language, so every further
+     * lookup of a handle of the same pool or folder is a plain array access.
+     *
+     * @param handle The handle to resolve.
+     * @return The content list, or null if the pool or folder does not exist in this language.
+     */
+    @SuppressWarnings("unchecked")
+    IndexedList<Input> content(@NotNull MessageHandle handle) {
+        var scope = handle.dictionary().scope();
+        var resolved = this.handleContent;
+        if (resolved != null && scope < resolved.length && resolved[scope] != null) {
+            return resolved[scope] == NO_CONTENT ? null : (IndexedList<Input>) resolved[scope];
+        }
+
+        var content = handle.lookup(this);
+        // A pool which could not be fetched yet is looked up again on the next access
+        if (content == null && this.isPending(handle.type(), handle.pool())) {
+            return null;
+        }
+        synchronized (this) {
+            resolved = this.handleContent;
+            resolved = resolved == null
+                    ? new IndexedList<?>[scope + 1]
+                    : Arrays.copyOf(resolved, Math.max(resolved.length, scope + 1));
+            resolved[scope] = content == null ? NO_CONTENT : content;
+            this.handleContent = resolved;
+        }
+        return content;
+    }
+
+    /**
+     * Checks if a pool is known to this language but has not been fetched yet.
+     *
+     * @param type The type of the pool.
+     * @param s    The name of the pool.
+     * @return true if accessing the pool would fetch it from the database.
+     */
+    public boolean isPending(@NotNull PoolType type, @NotNull String s) {
+        if (this.lazyPools == null || !this.lazyPools.isPending(type, s)) {
+            return false;
+        }
+        // Pools put into this language shadow the lazily fetched ones
+        return type == PoolType.FOLDER
+                ? this.multiFolderContentPools.stream().noneMatch(pool -> pool.poolMame().equalsIgnoreCase(s))
+                : this.unsortedContentPools.stream().noneMatch(pool -> pool.poolMame().equalsIgnoreCase(s));
     }
 }
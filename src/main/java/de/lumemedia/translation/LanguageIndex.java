@@ -0,0 +1,169 @@
+package de.lumemedia.translation;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.List;
+
+/*
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * A case-insensitive index from the names and tags of the languages of a catalog to the languages.
+ * <p>
+ * The index consists of open-addressing tables which are hashed and compared character by character,
+ * ignoring case and treating {@code -} and {@code _} alike, so a lookup neither normalizes nor copies the
+ * requested tag and does not allocate.
+ * When several languages share a name or tag, the first language of the catalog wins, and names take
+ * precedence over tags.
+ */
+public final class LanguageIndex {
+
+    private final Table exact;
+    private final Table primary;
+    private final Language defaultLanguage;
+
+    /**
+     * @param languages The languages of the catalog, without duplicate names.
+     * @param defaults  The default languages of the catalog.
+     */
+    public LanguageIndex(@NotNull Collection<Language> languages, @NotNull List<Language> defaults) {
+        var tagCount = 0;
+        for (var language : languages) {
+            tagCount += language.tags() == null ? 0 : language.tags().length;
+        }
+        this.exact = new Table(languages.size() + tagCount);
+        this.primary = new Table(tagCount);
+
+        for (var language : languages) {
+            this.exact.putIfAbsent(language.name(), 0, language.name().length(), language);
+        }
+        for (var language : languages) {
+            if (language.tags() == null) {
+                continue;
+            }
+            for (var tag : language.tags()) {
+                this.exact.putIfAbsent(tag, 0, tag.length(), language);
+                this.primary.putIfAbsent(tag, 0, primaryEnd(tag), language);
+            }
+        }
+        this.defaultLanguage = defaults.isEmpty() ? null : defaults.get(0);
+    }
+
+    /**
+     * Looks up a language by its name or one of its tags, ignoring case.
+     *
+     * @param nameOrTag The name or tag.
+     * @return The language, or null if no language has the name or tag.
+     */
+    public Language exact(@NotNull String nameOrTag) {
+        return this.exact.get(nameOrTag, 0, nameOrTag.length());
+    }
+
+    /**
+     * Finds the best matching language for a locale tag such as {@code de_at} or {@code en-US}: the
+     * language with the exact name or tag, otherwise the first language with a tag of the same primary
+     * subtag, otherwise the first default language.
+     *
+     * @param tag The locale tag.
+     * @return The best matching language, or null if nothing matches and there is no default language.
+     */
+    public Language negotiate(@NotNull String tag) {
+        var language = this.exact.get(tag, 0, tag.length());
+        if (language == null) {
+            language = this.primary.get(tag, 0, primaryEnd(tag));
+        }
+        return language == null ? this.defaultLanguage : language;
+    }
+
+    private static int primaryEnd(String tag) {
+        var end = 0;
+        while (end < tag.length() && tag.charAt(end) != '_' && tag.charAt(end) != '-') {
+            end++;
+        }
+        return end;
+    }
+
+    private static char fold(char c) {
+        // Both separators are accepted, so en-US matches a language tagged en_us
+        return c == '-' ? '_' : Character.toLowerCase(c);
+    }
+
+    private static int hash(String s, int start, int end) {
+        var hash = 0;
+        for (var i = start; i < end; i++) {
+            hash = hash * 31 + fold(s.charAt(i));
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static final class Table {
+        private final String[] keys;
+        private final int[] lengths;
+        private final Language[] languages;
+        private final int mask;
+
+        private Table(int expected) {
+            // Keep the table at most half full, so probe sequences stay short
+            var capacity = Integer.highestOneBit(Math.max(4, expected * 2) * 2 - 1);
+            this.keys = new String[capacity];
+            this.lengths = new int[capacity];
+            this.languages = new Language[capacity];
+            this.mask = capacity - 1;
+        }
+
+        private void putIfAbsent(String s, int start, int end, Language language) {
+            var index = hash(s, start, end) & this.mask;
+            while (this.keys[index] != null) {
+                if (this.matches(index, s, start, end)) {
+                    return;
+                }
+                index = (index + 1) & this.mask;
+            }
+            // Keys are only compared up to their length, which spares a substring for primary subtags
+            this.keys[index] = s;
+            this.lengths[index] = end - start;
+            this.languages[index] = language;
+        }
+
+        private Language get(String s, int start, int end) {
+            if (end == start) {
+                return null;
+            }
+            var index = hash(s, start, end) & this.mask;
+            while (this.keys[index] != null) {
+                if (this.matches(index, s, start, end)) {
+                    return this.languages[index];
+                }
+                index = (index + 1) & this.mask;
+            }
+            return null;
+        }
+
+        private boolean matches(int index, String s, int start, int end) {
+            var key = this.keys[index];
+            if (this.lengths[index] != end - start) {
+                return false;
+            }
+            for (var i = 0; i < end - start; i++) {
+                if (fold(key.charAt(i)) != fold(s.charAt(start + i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package de.lumemedia.translation;
+
+import de.lumemedia.translation.folder.MultiFolderContentPool;
+import de.lumemedia.translation.persistence.PoolType;
+import de.lumemedia.translation.unsorted.UnsortedContentPool;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * The pools of a language which are known by name and revision but fetched on first access.
+ * <p>
+ * A language loaded in lazy mode only holds its preloaded pools. The remaining pools are listed here
+ * and fetched through the {@link PoolLoader} the first time {@link Language#folder(String)} or
+ * {@link Language#unsorted(String)} asks for them. Fetched pools are kept here, and since copies of a
+ * language share this instance, a pool fetched through an outdated copy is visible to the current one.
+ */
+public final class LazyPools {
+
+    private final String language;
+    private final PoolLoader poolLoader;
+    private final Map<String, Pending> unsorted = new LinkedHashMap<>();
+    private final Map<String, Pending> folders = new LinkedHashMap<>();
+    private final Map<String, UnsortedContentPool> loadedUnsorted = new ConcurrentHashMap<>();
+    private final Map<String, MultiFolderContentPool> loadedFolders = new ConcurrentHashMap<>();
+
+    public LazyPools(@NotNull String language, @NotNull PoolLoader poolLoader) {
+        this.language = language;
+        this.poolLoader = poolLoader;
+    }
+
+    /**
+     * Registers a pool which is fetched on first access. Only used while the language is built.
+     *
+     * @param type     The type of the pool.
+     * @param pool     The stored name of the pool.
+     * @param revision The stored revision of the pool.
+     * @return This instance.
+     */
+    public LazyPools pending(@NotNull PoolType type, @NotNull String pool, long revision) {
+        this.pendingPools(type).put(TextUtil.normalize(pool), new Pending(pool, revision));
+        return this;
+    }
+
+    /**
+     * Checks if a pool is known but has not been fetched yet.
+     *
+     * @param type The type of the pool.
+     * @param pool The name of the pool.
+     * @return true if accessing the pool would fetch it.
+     */
+    public boolean isPending(@NotNull PoolType type, @NotNull String pool) {
+        var key = TextUtil.normalize(pool);
+        if (!this.pendingPools(type).containsKey(key)) {
+            return false;
+        }
+        return type == PoolType.FOLDER ? !this.loadedFolders.containsKey(key) : !this.loadedUnsorted.containsKey(key);
+    }
+
+    /**
+     * Retrieves an unsorted pool, fetching it on first access.
+     *
+     * @param pool The name of the pool.
+     * @return The pool, or null if it is not known.
+     */
+    public UnsortedContentPool unsorted(@NotNull String pool) {
+        var key = TextUtil.normalize(pool);
+        var loaded = this.loadedUnsorted.get(key);
+        if (loaded != null) {
+            return loaded;
+        }
+        var pending = this.unsorted.get(key);
+        if (pending == null) {
+            return null;
+        }
+
+        // Fetch outside of any lock, concurrent first accesses agree on the pool which was stored first
+        var fetched = this.poolLoader.loadUnsorted(this.language, pending.pool());
+        if (fetched == null) {
+            return null;
+        }
+        fetched.freeze();
+        var previous = this.loadedUnsorted.putIfAbsent(key, fetched);
+        return previous == null ? fetched : previous;
+    }
+
+    /**
+     * Retrieves a multi-folder pool, fetching it on first access.
+     *
+     * @param pool The name of the pool.
+     * @return The pool, or null if it is not known.
+     */
+    public MultiFolderContentPool folder(@NotNull String pool) {
+        var key = TextUtil.normalize(pool);
+        var loaded = this.loadedFolders.get(key);
+        if (loaded != null) {
+            return loaded;
+        }
+        var pending = this.folders.get(key);
+        if (pending == null) {
+            return null;
+        }
+
+        // Fetch outside of any lock, concurrent first accesses agree on the pool which was stored first
+        var fetched = this.poolLoader.loadFolder(this.language, pending.pool());
+        if (fetched == null) {
+            return null;
+        }
+        fetched.freeze();
+        var previous = this.loadedFolders.putIfAbsent(key, fetched);
+        return previous == null ? fetched : previous;
+    }
+
+    /**
+     * Takes over the pools of a previous version of the language whose revision is still the stored one,
+     * so a reload does not fetch them again.
+     *
+     * @param previous The previously loaded language.
+     */
+    public void adopt(@NotNull Language previous) {
+        for (var pool : previous.unsortedContentPools()) {
+            this.adoptUnsorted(pool);
+        }
+        for (var pool : previous.multiFolderContentPools()) {
+            this.adoptFolder(pool);
+        }
+        if (previous.lazyPools() != null && previous.lazyPools() != this) {
+            previous.lazyPools().loadedUnsorted.values().forEach(this::adoptUnsorted);
+            previous.lazyPools().loadedFolders.values().forEach(this::adoptFolder);
+        }
+    }
+
+    private void adoptUnsorted(UnsortedContentPool pool) {
+        var key = TextUtil.normalize(pool.poolMame());
+        var pending = this.unsorted.get(key);
+        if (pending != null && pending.revision() == pool.revision()) {
+            this.loadedUnsorted.putIfAbsent(key, pool);
+        }
+    }
+
+    private void adoptFolder(MultiFolderContentPool pool) {
+        var key = TextUtil.normalize(pool.poolMame());
+        var pending = this.folders.get(key);
+        if (pending != null && pending.revision() == pool.revision()) {
+            this.loadedFolders.putIfAbsent(key, pool);
+        }
+    }
+
+    /**
+     * @return The unsorted pools which have been fetched so far.
+     */
+    public Collection<UnsortedContentPool> loadedUnsorted() {
+        return this.loadedUnsorted.values();
+    }
+
+    /**
+     * @return The multi-folder pools which have been fetched so far.
+     */
+    public Collection<MultiFolderContentPool> loadedFolders() {
+        return this.loadedFolders.values();
+    }
+
+    /**
+     * @param type The type of the pools.
+     * @return All known pools of the given type, fetched or not, by normalized name.
+     */
+    public Map<String, Pending> names(@NotNull PoolType type) {
+        return Collections.unmodifiableMap(this.pendingPools(type));
+    }
+
+    private Map<String, Pending> pendingPools(PoolType type) {
+        return type == PoolType.FOLDER ? this.folders : this.unsorted;
+    }
+
+    /**
+     * A pool which is fetched on first access.
+     *
+     * @param pool     The stored name of the pool.
+     * @param revision The stored revision of the pool.
+     */
+    public record Pending(@NotNull String pool, long revision) {
+    }
+}
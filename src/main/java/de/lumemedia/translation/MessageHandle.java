@@ -0,0 +1,180 @@
+package de.lumemedia.translation;
+
+import de.lumemedia.translation.persistence.PoolType;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * A message resolved once to its slot, for callers which render the same message over and over.
+ * <p>
+ * The (pool, folder, key) of the message is resolved to the id of the key in the {@link KeyDictionary}
+ * of its pool or folder. Ids are never reassigned, so a handle stays valid across reloads and catalog
+ * swaps and is best kept in a constant. Rendering for a language reads the content list of the pool or
+ * folder, which the language keeps resolved per handle scope, and then reads the template at the slot.
+ * <p>
+ * The methods taking a {@link Catalog} look the language up by name in that catalog, so a language kept
+ * by the caller never renders outdated content, and resolve a missing message through the fallback chain
+ * of the language, just like the message repositories do. The methods taking only a language read that
+ * language object as it is, where a missing message, folder or pool renders {@link MessageTemplate#NOT_FOUND}.
+ */
+@Getter
+public final class MessageHandle {
+
+    private final PoolType type;
+    private final String pool;
+    private final String folder;
+    private final String key;
+    @Getter(AccessLevel.PACKAGE)
+    private final KeyDictionary dictionary;
+    private final int slot;
+    // The render cache scope of the message by language name, so rendering does not normalize the names again
+    @Getter(AccessLevel.NONE)
+    private final ConcurrentHashMap<String, RenderCache.Scope> scopes = new ConcurrentHashMap<>();
+
+    private MessageHandle(PoolType type, String pool, String folder, String key, KeyDictionary dictionary) {
+        this.type = type;
+        this.pool = pool;
+        this.folder = folder;
+        this.key = key;
+        this.dictionary = dictionary;
+        this.slot = dictionary.id(key);
+    }
+
+    /**
+     * Resolves a message of a folder.
+     *
+     * @param pool   The name of the folder pool.
+     * @param folder The key of the folder within the pool.
+     * @param key    The key of the message.
+     * @return The handle of the message.
+     */
+    public static MessageHandle folder(@NotNull String pool, @NotNull String folder, @NotNull String key) {
+        return new MessageHandle(PoolType.FOLDER, pool, folder, key, KeyDictionary.folder(pool, folder));
+    }
+
+    /**
+     * Resolves a message of an unsorted pool.
+     *
+     * @param pool The name of the unsorted pool.
+     * @param key  The key of the message.
+     * @return The handle of the message.
+     */
+    public static MessageHandle unsorted(@NotNull String pool, @NotNull String key) {
+        return new MessageHandle(PoolType.UNSORTED, pool, null, key, KeyDictionary.unsorted(pool));
+    }
+
+    /**
+     * @param language The language to look the message up in.
+     * @return True if the language has a value for the message.
+     */
+    public boolean containsMessage(@NotNull Language language) {
+        var content = language.content(this);
+        if (content == null) {
+            return false;
+        }
+        // Messages stored without a value count as missing, like in the message repositories
+        var input = content.find(this.key);
+        return input != null && input.raw() != null;
+    }
+
+    /**
+     * @param language The language to look the message up in.
+     * @return The template of the message, or {@link MessageTemplate#NOT_FOUND} if the language has none.
+     */
+    public MessageTemplate template(@NotNull Language language) {
+        var template = this.find(language);
+        return template == null ? MessageTemplate.NOT_FOUND : template;
+    }
+
+    /**
+     * Looks the message up in the current version of the language and then in its fallback chain.
+     *
+     * @param catalog  The current catalog.
+     * @param language The language to look the message up in, resolved by name in the catalog.
+     * @return The template of the message, or {@link MessageTemplate#NOT_FOUND} if neither the language
+     * nor one of its fallbacks has it.
+     */
+    public MessageTemplate template(@NotNull Catalog catalog, @NotNull Language language) {
+        var current = catalog.language(language.name());
+        var template = this.find(current == null ? language : current);
+        if (template != null) {
+            return template;
+        }
+        for (var fallback : catalog.fallbacks(language.name())) {
+            template = this.find(fallback);
+            if (template != null) {
+                return template;
+            }
+        }
+        return MessageTemplate.NOT_FOUND;
+    }
+
+    /**
+     * @param language The language to render the message in.
+     * @param objects  The arguments of the message.
+     * @return The rendered message.
+     */
+    public String render(@NotNull Language language, Object... objects) {
+        return this.template(language).render(objects);
+    }
+
+    /**
+     * Renders the message like {@link #template(Catalog, Language)} resolves it, through the render cache
+     * of the catalog if it has one.
+     *
+     * @param catalog  The current catalog.
+     * @param language The language to render the message in, resolved by name in the catalog.
+     * @param objects  The arguments of the message.
+     * @return The rendered message.
+     */
+    public String render(@NotNull Catalog catalog, @NotNull Language language, Object... objects) {
+        var template = this.template(catalog, language);
+        var renderCache = catalog.renderCache();
+        if (renderCache == null) {
+            return template.render(objects);
+        }
+        var scope = this.scopes.computeIfAbsent(language.name(), name -> RenderCache.scope(name, this.pool, this.folder));
+        return renderCache.render(scope, this.key, template, objects);
+    }
+
+    private MessageTemplate find(Language language) {
+        var content = language.content(this);
+        if (content instanceof ColumnarInputList columnar) {
+            return columnar.template(this.dictionary, this.slot, this.key);
+        }
+        if (content != null) {
+            var input = content.find(this.key);
+            return input == null ? null : input.template();
+        }
+        return null;
+    }
+
+    IndexedList<Input> lookup(Language language) {
+        if (this.type == PoolType.UNSORTED) {
+            var unsortedContentPool = language.unsorted(this.pool);
+            return unsortedContentPool == null ? null : unsortedContentPool.inputs();
+        }
+        var multiFolderContentPool = language.folder(this.pool);
+        var content = multiFolderContentPool == null ? null : multiFolderContentPool.folder(this.folder);
+        return content == null ? null : content.rows();
+    }
+}
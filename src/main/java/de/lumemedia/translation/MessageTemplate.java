@@ -0,0 +1,291 @@
+package de.lumemedia.translation;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/*
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * A raw message compiled once into literal chunks and argument slots.
+ * <p>
+ * {@code {NEXT_LINE}} tokens are folded into the literal chunks at compile time, and every
+ * {@code {i}} placeholder becomes a slot that is filled with the i-th argument in a single
+ * pass. Placeholders without a matching argument are kept as they are, exactly like
+ * {@link TextUtil#buildMessage(String, Object...)} always did.
+ */
+public final class MessageTemplate implements Serializable {
+
+    private static final String NEXT_LINE = "{NEXT_LINE}";
+    private static final int[] NO_SLOTS = new int[0];
+    private static final ThreadLocal<RenderBuffer> BUFFER = ThreadLocal.withInitial(RenderBuffer::new);
+
+    public static final MessageTemplate NOT_FOUND = compile("We are sorry. Unfortunately, this message could not be found in your language.");
+
+    private final String source;
+    private final String[] literals;
+    private final int[] slots;
+    private final int literalLength;
+
+    private MessageTemplate(String source, String[] literals, int[] slots) {
+        this.source = source;
+        this.literals = literals;
+        this.slots = slots;
+        var length = 0;
+        for (var literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Compiles a raw message into a template.
+     *
+     * @param raw The raw message containing placeholders.
+     * @return The compiled template, or null if the raw message is null.
+     */
+    public static MessageTemplate compile(String raw) {
+        if (raw == null) {
+            return null;
+        }
+
+        // Fast path for messages without any placeholder
+        if (raw.indexOf('{') < 0) {
+            return new MessageTemplate(raw, new String[]{raw}, NO_SLOTS);
+        }
+
+        var text = raw.replace(NEXT_LINE, "\n");
+        var literals = new ArrayList<String>();
+        var slots = new int[4];
+        var slotCount = 0;
+        var chunkStart = 0;
+        var i = text.indexOf('{');
+
+        while (i >= 0) {
+            // Parse {digits} without leading zeros, as only "{" + index + "}" was ever replaced
+            var end = i + 1;
+            while (end < text.length() && end - i <= 9 && text.charAt(end) >= '0' && text.charAt(end) <= '9') {
+                end++;
+            }
+            var digits = end - i - 1;
+            if (digits > 0 && end < text.length() && text.charAt(end) == '}'
+                    && (digits == 1 || text.charAt(i + 1) != '0')) {
+                if (slotCount == slots.length) {
+                    slots = Arrays.copyOf(slots, slotCount * 2);
+                }
+                literals.add(text.substring(chunkStart, i));
+                slots[slotCount++] = Integer.parseInt(text, i + 1, end, 10);
+                chunkStart = end + 1;
+                i = text.indexOf('{', chunkStart);
+            } else {
+                i = text.indexOf('{', i + 1);
+            }
+        }
+
+        literals.add(text.substring(chunkStart));
+        return new MessageTemplate(raw, literals.toArray(new String[0]), Arrays.copyOf(slots, slotCount));
+    }
+
+    /**
+     * Retrieves the raw message this template was compiled from.
+     *
+     * @return The raw message.
+     */
+    public String source() {
+        return this.source;
+    }
+
+    /**
+     * Checks whether this template contains any argument slot.
+     *
+     * @return True if rendering depends on arguments.
+     */
+    public boolean hasSlots() {
+        return this.slots.length > 0;
+    }
+
+    /**
+     * Renders the message with the provided arguments.
+     *
+     * @param objects Objects to replace placeholders in the message.
+     * @return The rendered message.
+     */
+    public String render(Object... objects) {
+        if (this.slots.length == 0) {
+            return this.literals[0];
+        }
+        var buffer = BUFFER.get();
+        var builder = buffer.acquire(this.literalLength + this.slots.length * 16);
+        try {
+            return this.appendTo(builder, objects).toString();
+        } finally {
+            buffer.release(builder);
+        }
+    }
+
+    /**
+     * Renders the message with a single primitive argument without boxing it.
+     *
+     * @param value The value to replace the {0} placeholder with.
+     * @return The rendered message.
+     */
+    public String render(long value) {
+        if (this.slots.length == 0) {
+            return this.literals[0];
+        }
+        var buffer = BUFFER.get();
+        var builder = buffer.acquire(this.literalLength + this.slots.length * 16);
+        try {
+            builder.append(this.literals[0]);
+            for (var i = 0; i < this.slots.length; i++) {
+                if (this.slots[i] == 0) {
+                    builder.append(value);
+                } else {
+                    appendPlaceholder(builder, this.slots[i]);
+                }
+                builder.append(this.literals[i + 1]);
+            }
+            return builder.toString();
+        } finally {
+            buffer.release(builder);
+        }
+    }
+
+    /**
+     * Renders the message with a single primitive argument without boxing it.
+     *
+     * @param value The value to replace the {0} placeholder with.
+     * @return The rendered message.
+     */
+    public String render(double value) {
+        if (this.slots.length == 0) {
+            return this.literals[0];
+        }
+        var buffer = BUFFER.get();
+        var builder = buffer.acquire(this.literalLength + this.slots.length * 24);
+        try {
+            builder.append(this.literals[0]);
+            for (var i = 0; i < this.slots.length; i++) {
+                if (this.slots[i] == 0) {
+                    builder.append(value);
+                } else {
+                    appendPlaceholder(builder, this.slots[i]);
+                }
+                builder.append(this.literals[i + 1]);
+            }
+            return builder.toString();
+        } finally {
+            buffer.release(builder);
+        }
+    }
+
+    /**
+     * Renders the message with the provided arguments into the given builder.
+     *
+     * @param builder The builder to append to.
+     * @param objects Objects to replace placeholders in the message.
+     * @return The given builder.
+     */
+    public StringBuilder appendTo(@NotNull StringBuilder builder, Object... objects) {
+        builder.append(this.literals[0]);
+        for (var i = 0; i < this.slots.length; i++) {
+            var slot = this.slots[i];
+            if (slot < objects.length) {
+                builder.append(objects[slot]);
+            } else {
+                appendPlaceholder(builder, slot);
+            }
+            builder.append(this.literals[i + 1]);
+        }
+        return builder;
+    }
+
+    /**
+     * Renders the message with the provided arguments into the given appendable.
+     *
+     * @param appendable The appendable to write to.
+     * @param objects    Objects to replace placeholders in the message.
+     * @return The given appendable.
+     * @throws IOException If the appendable fails to accept the characters.
+     */
+    public <A extends Appendable> A appendTo(@NotNull A appendable, Object... objects) throws IOException {
+        appendable.append(this.literals[0]);
+        for (var i = 0; i < this.slots.length; i++) {
+            var slot = this.slots[i];
+            if (slot < objects.length) {
+                appendable.append(String.valueOf(objects[slot]));
+            } else {
+                appendable.append('{').append(Integer.toString(slot)).append('}');
+            }
+            appendable.append(this.literals[i + 1]);
+        }
+        return appendable;
+    }
+
+    private static void appendPlaceholder(StringBuilder builder, int slot) {
+        builder.append('{').append(slot).append('}');
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof MessageTemplate template && this.source.equals(template.source));
+    }
+
+    @Override
+    public int hashCode() {
+        return this.source.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return this.source;
+    }
+
+    /**
+     * Per-thread reusable builder. Arguments whose toString() renders another template on the same
+     * thread get a fresh builder instead of corrupting the one in use.
+     */
+    private static final class RenderBuffer {
+        private static final int MAX_RETAINED_CAPACITY = 8192;
+
+        private StringBuilder builder = new StringBuilder(256);
+        private boolean inUse;
+
+        StringBuilder acquire(int capacity) {
+            if (this.inUse) {
+                return new StringBuilder(capacity);
+            }
+            this.inUse = true;
+            this.builder.setLength(0);
+            this.builder.ensureCapacity(capacity);
+            return this.builder;
+        }
+
+        void release(StringBuilder builder) {
+            if (builder != this.builder) {
+                return;
+            }
+            this.inUse = false;
+            if (builder.capacity() > MAX_RETAINED_CAPACITY) {
+                this.builder = new StringBuilder(256);
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package de.lumemedia.translation;
+
+import de.lumemedia.translation.folder.MultiFolderContentPool;
+import de.lumemedia.translation.unsorted.UnsortedContentPool;
+import org.jetbrains.annotations.NotNull;
+
+/*
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Fetches single pools of a language which was loaded without its content.
+ */
+public interface PoolLoader {
+
+    /**
+     * Fetches an unsorted pool.
+     *
+     * @param language The name of the language.
+     * @param pool     The stored name of the pool.
+     * @return The pool, or null if it is no longer stored.
+     */
+    UnsortedContentPool loadUnsorted(@NotNull String language, @NotNull String pool);
+
+    /**
+     * Fetches a multi-folder pool.
+     *
+     * @param language The name of the language.
+     * @param pool     The stored name of the pool.
+     * @return The pool, or null if it is no longer stored.
+     */
+    MultiFolderContentPool loadFolder(@NotNull String language, @NotNull String pool);
+}
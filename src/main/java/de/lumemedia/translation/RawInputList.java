@@ -0,0 +1,252 @@
+package de.lumemedia.translation;
+
+import org.bson.BsonSerializationException;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Objects;
+
+/*
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * An input list backed by the raw BSON bytes of a content document.
+ * <p>
+ * Loading only records the key and the offset of every value. A value is decoded into its
+ * {@link Input}, including the compiled template, on first access and is then either kept in this list
+ * or, if a {@link DecodedCache} is given, in that bounded cache, in which case it may be decoded again
+ * after it was evicted. The first mutation decodes all values and turns this into a regular list.
+ */
+public class RawInputList extends IndexedList<Input> {
+
+    private static final int NULL_VALUE = -1;
+
+    private final byte[] bytes;
+    private final String[] keys;
+    private final int[] offsets;
+    private final HashMap<String, Integer> positions;
+    private final transient DecodedCache cache;
+    private final Input[] decoded;
+    private volatile boolean materialized;
+
+    /**
+     * Indexes the content document at the given offset.
+     *
+     * @param bytes  The raw bytes containing the document, which must not be modified afterwards.
+     * @param offset The offset of the content document, mapping keys to string values.
+     * @param cache  The bounded cache of decoded entries, or null to keep every decoded entry.
+     */
+    public RawInputList(byte[] bytes, int offset, DecodedCache cache) {
+        this.bytes = bytes;
+        this.cache = cache;
+
+        var size = readInt(bytes, offset);
+        var end = offset + size - 1;
+        var keys = new String[16];
+        var offsets = new int[16];
+        var count = 0;
+
+        var position = offset + 4;
+        while (position < end) {
+            var type = bytes[position++];
+            var nameStart = position;
+            while (bytes[position] != 0) {
+                position++;
+            }
+            var name = new String(bytes, nameStart, position - nameStart, StandardCharsets.UTF_8);
+            position++;
+
+            // Only string and null values are messages, everything else is skipped like the eager decoding does
+            var valueOffset = type == 0x02 ? position : type == 0x0A ? NULL_VALUE : Integer.MIN_VALUE;
+            position = skip(bytes, position, type);
+            if (valueOffset == Integer.MIN_VALUE) {
+                continue;
+            }
+
+            if (count == keys.length) {
+                keys = Arrays.copyOf(keys, count * 2);
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            keys[count] = name;
+            offsets[count] = valueOffset;
+            count++;
+        }
+
+        this.keys = Arrays.copyOf(keys, count);
+        this.offsets = Arrays.copyOf(offsets, count);
+        this.positions = new HashMap<>(Math.max(16, (int) (count / 0.75f) + 1));
+        for (var i = 0; i < count; i++) {
+            this.positions.putIfAbsent(TextUtil.normalize(this.keys[i]), i);
+        }
+        this.decoded = cache == null ? new Input[count] : null;
+    }
+
+    /**
+     * @param i The position of the entry.
+     * @return The key of the entry, without decoding its value.
+     */
+    public String key(int i) {
+        return this.materialized ? super.get(i).key() : this.keys[i];
+    }
+
+    /**
+     * @param i The position of the entry.
+     * @return The raw value of the entry, decoded without compiling or keeping it.
+     */
+    public String raw(int i) {
+        return this.materialized ? super.get(i).raw() : this.decodeRaw(i);
+    }
+
+    @Override
+    public Input find(@NotNull String key) {
+        if (this.materialized) {
+            return super.find(key);
+        }
+        var position = this.positions.get(TextUtil.normalize(key));
+        return position == null ? null : this.get(position);
+    }
+
+    @Override
+    public boolean containsKey(@NotNull String key) {
+        return this.materialized ? super.containsKey(key) : this.positions.containsKey(TextUtil.normalize(key));
+    }
+
+    @Override
+    public Input get(int i) {
+        if (this.materialized) {
+            return super.get(i);
+        }
+        Objects.checkIndex(i, this.keys.length);
+
+        var input = this.decoded != null ? this.decoded[i] : this.cache.get(this, i);
+        if (input == null) {
+            // Racing first accesses decode the same immutable value, whichever is stored wins
+            input = new Input(this.keys[i], this.decodeRaw(i));
+            if (this.decoded != null) {
+                this.decoded[i] = input;
+            } else {
+                this.cache.put(this, i, input);
+            }
+        }
+        return input;
+    }
+
+    @Override
+    public int size() {
+        return this.materialized ? super.size() : this.keys.length;
+    }
+
+    @Override
+    public Input put(@NotNull Input element) {
+        this.checkMutable();
+        this.materialize();
+        return super.put(element);
+    }
+
+    @Override
+    public Input removeKey(@NotNull String key) {
+        this.checkMutable();
+        this.materialize();
+        return super.removeKey(key);
+    }
+
+    @Override
+    public Input set(int i, Input element) {
+        this.checkMutable();
+        this.materialize();
+        return super.set(i, element);
+    }
+
+    @Override
+    public void add(int i, Input element) {
+        this.checkMutable();
+        this.materialize();
+        super.add(i, element);
+    }
+
+    @Override
+    public Input remove(int i) {
+        this.checkMutable();
+        this.materialize();
+        return super.remove(i);
+    }
+
+    @Override
+    public void clear() {
+        this.checkMutable();
+        this.materialize();
+        super.clear();
+    }
+
+    private synchronized void materialize() {
+        if (this.materialized) {
+            return;
+        }
+        var inputs = new Input[this.keys.length];
+        for (var i = 0; i < inputs.length; i++) {
+            inputs[i] = this.get(i);
+        }
+        this.materialized = true;
+        for (var input : inputs) {
+            super.add(super.size(), input);
+        }
+    }
+
+    private String decodeRaw(int i) {
+        var offset = this.offsets[i];
+        if (offset == NULL_VALUE) {
+            return null;
+        }
+        // A BSON string is its length including the terminating zero, followed by the UTF-8 bytes
+        var length = readInt(this.bytes, offset) - 1;
+        return new String(this.bytes, offset + 4, length, StandardCharsets.UTF_8);
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xff)
+                | (bytes[offset + 1] & 0xff) << 8
+                | (bytes[offset + 2] & 0xff) << 16
+                | (bytes[offset + 3] & 0xff) << 24;
+    }
+
+    private static int skip(byte[] bytes, int position, byte type) {
+        return switch (type) {
+            case 0x01, 0x09, 0x11, 0x12 -> position + 8;
+            case 0x02, 0x0D, 0x0E -> position + 4 + readInt(bytes, position);
+            case 0x03, 0x04, 0x0F -> position + readInt(bytes, position);
+            case 0x05 -> position + 5 + readInt(bytes, position);
+            case 0x07 -> position + 12;
+            case 0x08 -> position + 1;
+            case 0x0A, 0x06, 0x7F, (byte) 0xFF -> position;
+            // A regular expression is two cstrings, the pattern and the options
+            case 0x0B -> skipCString(bytes, skipCString(bytes, position));
+            // A DBPointer is a string followed by a 12 byte ObjectId
+            case 0x0C -> position + 4 + readInt(bytes, position) + 12;
+            case 0x10 -> position + 4;
+            case 0x13 -> position + 16;
+            default -> throw new BsonSerializationException("Unsupported BSON type " + type + " in content document");
+        };
+    }
+
+    private static int skipCString(byte[] bytes, int position) {
+        while (bytes[position] != 0) {
+            position++;
+        }
+        return position + 1;
+    }
+}
@@ -0,0 +1,401 @@
+package de.lumemedia.translation;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/*
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * A bounded cache of rendered messages, keyed by (language, pool, folder, key, arguments).
+ * <p>
+ * The cache is split into segments, each an access-ordered map guarded by its own lock and bounded by
+ * a share of the maximum size and weight, where the weight of a message is its length. When a segment is
+ * full, a new message is only admitted if it was requested more often than the least recently used one,
+ * as estimated by a shared frequency sketch. Messages requested once therefore never displace messages
+ * which are rendered over and over.
+ * <p>
+ * Every entry remembers the template it was rendered from and is only served for that template, so a
+ * changed message is never served stale. Changed pools and reloaded languages are additionally
+ * invalidated to release their entries early.
+ * <p>
+ * Only messages whose arguments are immutable values, such as strings, numbers, booleans, characters,
+ * enums and UUIDs, are cached; all other messages are rendered on every call.
+ */
+public final class RenderCache {
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final FrequencySketch sketch;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    // Lookups go through a reused key per thread, keys are only allocated for admitted messages
+    private final ThreadLocal<RenderKey> probes = ThreadLocal.withInitial(RenderKey::new);
+
+    /**
+     * @param maximumSize   The maximum number of messages kept across all segments.
+     * @param maximumWeight The maximum total length of the messages kept, or 0 to only bound the size.
+     *                      Messages longer than the share of a segment, a sixteenth, are not cached.
+     */
+    public RenderCache(int maximumSize, long maximumWeight) {
+        var segmentSize = Math.max(1, maximumSize / SEGMENTS);
+        var segmentWeight = maximumWeight <= 0 ? Long.MAX_VALUE : Math.max(1, maximumWeight / SEGMENTS);
+        for (var i = 0; i < SEGMENTS; i++) {
+            this.segments[i] = new Segment(segmentSize, segmentWeight);
+        }
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    /**
+     * Creates the scope of the messages of a pool or folder in a language. Repositories create their scope
+     * once, so rendering does not normalize the names again.
+     *
+     * @param language The name of the language.
+     * @param pool     The name of the pool.
+     * @param folder   The key of the folder, or null for unsorted pools.
+     * @return The scope.
+     */
+    public static Scope scope(@NotNull String language, String pool, String folder) {
+        return new Scope(TextUtil.normalize(language), pool == null ? "" : TextUtil.normalize(pool),
+                folder == null ? null : TextUtil.normalize(folder));
+    }
+
+    /**
+     * Retrieves the rendered message from the cache, or renders and caches it.
+     *
+     * @param language   The name of the language.
+     * @param pool       The name of the pool.
+     * @param folder     The key of the folder, or null for unsorted pools.
+     * @param messageKey The key of the message.
+     * @param template   The current template of the message.
+     * @param objects    The arguments of the message.
+     * @return The rendered message.
+     */
+    public String render(@NotNull String language, @NotNull String pool, String folder, @NotNull String messageKey,
+                         @NotNull MessageTemplate template, Object... objects) {
+        return this.render(scope(language, pool, folder), messageKey, template, objects);
+    }
+
+    /**
+     * Retrieves the rendered message from the cache, or renders and caches it. A cache hit does not allocate.
+     *
+     * @param scope      The scope of the message, see {@link #scope(String, String, String)}.
+     * @param messageKey The key of the message.
+     * @param template   The current template of the message.
+     * @param objects    The arguments of the message.
+     * @return The rendered message.
+     */
+    public String render(@NotNull Scope scope, @NotNull String messageKey, @NotNull MessageTemplate template, Object... objects) {
+        // Messages without slots render to a constant, messages with mutable arguments cannot be cached
+        if (!template.hasSlots() || !cacheable(objects)) {
+            return template.render(objects);
+        }
+
+        var probe = this.probes.get().with(scope, TextUtil.normalize(messageKey), objects);
+        var hash = probe.hashCode();
+        this.sketch.increment(hash);
+        var segment = this.segments[(hash & 0x7fffffff) % SEGMENTS];
+        synchronized (segment) {
+            var entry = segment.get(probe);
+            if (entry != null && entry.template == template) {
+                probe.objects = null;
+                this.hits.increment();
+                return entry.text;
+            }
+        }
+
+        // The arguments are only copied for the key which is admitted, the caller may reuse its array
+        var key = new RenderKey().with(scope, probe.key, objects.clone());
+        probe.objects = null;
+        this.misses.increment();
+        var text = template.render(objects);
+        synchronized (segment) {
+            segment.admit(key, new Rendered(template, text));
+        }
+        return text;
+    }
+
+    /**
+     * Drops the messages of a pool in a language.
+     *
+     * @param language The name of the language.
+     * @param pool     The name of the pool.
+     */
+    public void invalidate(@NotNull String language, @NotNull String pool) {
+        var normalizedLanguage = TextUtil.normalize(language);
+        var normalizedPool = TextUtil.normalize(pool);
+        this.removeIf(key -> key.scope.language.equals(normalizedLanguage) && key.scope.pool.equals(normalizedPool));
+    }
+
+    /**
+     * Drops the messages of a language.
+     *
+     * @param language The name of the language.
+     */
+    public void invalidateLanguage(@NotNull String language) {
+        var normalizedLanguage = TextUtil.normalize(language);
+        this.removeIf(key -> key.scope.language.equals(normalizedLanguage));
+    }
+
+    /**
+     * Drops all messages.
+     */
+    public void invalidateAll() {
+        this.removeIf(key -> true);
+    }
+
+    /**
+     * @return A snapshot of the statistics of this cache.
+     */
+    public Stats stats() {
+        var size = 0L;
+        var weight = 0L;
+        for (var segment : this.segments) {
+            synchronized (segment) {
+                size += segment.size();
+                weight += segment.weight;
+            }
+        }
+        return new Stats(this.hits.sum(), this.misses.sum(), this.evictions.sum(), this.rejections.sum(), size, weight);
+    }
+
+    private void removeIf(Predicate<RenderKey> predicate) {
+        for (var segment : this.segments) {
+            synchronized (segment) {
+                segment.removeIf(predicate);
+            }
+        }
+    }
+
+    private static boolean cacheable(Object[] objects) {
+        for (var object : objects) {
+            if (!(object == null
+                    || object instanceof String
+                    || object instanceof Integer || object instanceof Long
+                    || object instanceof Short || object instanceof Byte
+                    || object instanceof Double || object instanceof Float
+                    || object instanceof BigInteger || object instanceof BigDecimal
+                    || object instanceof Boolean || object instanceof Character
+                    || object instanceof Enum<?> || object instanceof UUID)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The statistics of a render cache.
+     *
+     * @param hits       The number of messages served from the cache.
+     * @param misses     The number of cacheable messages which had to be rendered.
+     * @param evictions  The number of messages evicted to admit others.
+     * @param rejections The number of rendered messages which were not admitted.
+     * @param size       The number of cached messages.
+     * @param weight     The total length of the cached messages.
+     */
+    public record Stats(long hits, long misses, long evictions, long rejections, long size, long weight) {
+
+        /**
+         * @return The share of cacheable requests served from the cache, or 0 if there were none.
+         */
+        public double hitRate() {
+            var requests = this.hits + this.misses;
+            return requests == 0 ? 0 : (double) this.hits / requests;
+        }
+    }
+
+    /**
+     * The language, pool and folder of cached messages, with normalized names.
+     */
+    public static final class Scope {
+        private final String language;
+        private final String pool;
+        private final String folder;
+        private final int hash;
+
+        private Scope(String language, String pool, String folder) {
+            this.language = language;
+            this.pool = pool;
+            this.folder = folder;
+            this.hash = (language.hashCode() * 31 + pool.hashCode()) * 31 + Objects.hashCode(folder);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || o instanceof Scope other
+                    && other.hash == this.hash
+                    && other.language.equals(this.language)
+                    && other.pool.equals(this.pool)
+                    && Objects.equals(other.folder, this.folder);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+
+    // Keys held by the segments are never changed, only the probe of a thread is refilled for each lookup
+    private static final class RenderKey {
+        private Scope scope;
+        private String key;
+        private Object[] objects;
+        private int hash;
+
+        private RenderKey with(Scope scope, String key, Object[] objects) {
+            this.scope = scope;
+            this.key = key;
+            this.objects = objects;
+            this.hash = (scope.hash * 31 + key.hashCode()) * 31 + Arrays.hashCode(objects);
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof RenderKey other
+                    && other.hash == this.hash
+                    && other.scope.equals(this.scope)
+                    && other.key.equals(this.key)
+                    && Arrays.equals(other.objects, this.objects);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+
+    private record Rendered(MessageTemplate template, String text) {
+    }
+
+    private final class Segment extends LinkedHashMap<RenderKey, Rendered> {
+        private final int maximumSize;
+        private final long maximumWeight;
+        private long weight;
+
+        private Segment(int maximumSize, long maximumWeight) {
+            super(16, 0.75f, true);
+            this.maximumSize = maximumSize;
+            this.maximumWeight = maximumWeight;
+        }
+
+        private void admit(RenderKey key, Rendered rendered) {
+            var added = rendered.text.length();
+            var previous = this.remove(key);
+            if (previous != null) {
+                this.weight -= previous.text.length();
+            }
+            if (added > this.maximumWeight) {
+                RenderCache.this.rejections.increment();
+                return;
+            }
+
+            // Evict the least recently used messages while the candidate is the more frequently requested one
+            var candidateFrequency = RenderCache.this.sketch.frequency(key.hashCode());
+            var iterator = this.entrySet().iterator();
+            while (this.size() >= this.maximumSize || this.weight + added > this.maximumWeight) {
+                var eldest = iterator.next();
+                if (previous == null && RenderCache.this.sketch.frequency(eldest.getKey().hashCode()) >= candidateFrequency) {
+                    RenderCache.this.rejections.increment();
+                    return;
+                }
+                iterator.remove();
+                this.weight -= eldest.getValue().text.length();
+                RenderCache.this.evictions.increment();
+            }
+            this.put(key, rendered);
+            this.weight += added;
+        }
+
+        private void removeIf(Predicate<RenderKey> predicate) {
+            for (Iterator<Map.Entry<RenderKey, Rendered>> iterator = this.entrySet().iterator(); iterator.hasNext(); ) {
+                var entry = iterator.next();
+                if (predicate.test(entry.getKey())) {
+                    iterator.remove();
+                    this.weight -= entry.getValue().text.length();
+                }
+            }
+        }
+    }
+
+    /**
+     * A count-min sketch of 4-bit counters estimating how often a message was requested recently.
+     * Counters are halved once the number of increments reaches ten times the cache size, so the
+     * estimate follows changes in popularity. Unsynchronized updates may lose increments, which only
+     * makes the estimate slightly less precise.
+     */
+    private static final class FrequencySketch {
+        private static final int[] SEEDS = {0x97cb3127, 0xb3eb2f1d, 0xe85b1d3b, 0x2cd57e97};
+
+        private final byte[] counters;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        private FrequencySketch(int maximumSize) {
+            // Four counters per cached message keep collisions between the estimates rare
+            var length = Integer.highestOneBit(Math.max(256, Math.min(maximumSize, 1 << 24) * 4) * 2 - 1);
+            this.counters = new byte[length];
+            this.mask = length - 1;
+            this.sampleSize = Math.max(640, maximumSize * 10);
+        }
+
+        private void increment(int hash) {
+            for (var seed : SEEDS) {
+                var index = this.index(hash, seed);
+                if (this.counters[index] < 15) {
+                    this.counters[index]++;
+                }
+            }
+            if (++this.additions >= this.sampleSize) {
+                this.reset();
+            }
+        }
+
+        private int frequency(int hash) {
+            var frequency = 15;
+            for (var seed : SEEDS) {
+                frequency = Math.min(frequency, this.counters[this.index(hash, seed)]);
+            }
+            return frequency;
+        }
+
+        private int index(int hash, int seed) {
+            var mixed = (hash ^ (hash >>> 16)) * seed;
+            return (mixed ^ (mixed >>> 16)) & this.mask;
+        }
+
+        private void reset() {
+            this.additions /= 2;
+            for (var i = 0; i < this.counters.length; i++) {
+                this.counters[i] = (byte) (this.counters[i] >>> 1);
+            }
+        }
+    }
+}
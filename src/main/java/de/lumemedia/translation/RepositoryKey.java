@@ -0,0 +1,44 @@
+package de.lumemedia.translation;
+
+import org.jetbrains.annotations.NotNull;
+
+/*
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+public record RepositoryKey(@NotNull String language, @NotNull String pool, @NotNull String folder) {
+
+    /**
+     * Creates a normalized key for a folder message repository.
+     *
+     * @param language The language name.
+     * @param pool     The message pool name.
+     * @param folder   The folder name within the pool.
+     * @return The case-insensitive repository key.
+     */
+    public static RepositoryKey of(@NotNull String language, @NotNull String pool, @NotNull String folder) {
+        return new RepositoryKey(TextUtil.normalize(language), TextUtil.normalize(pool), TextUtil.normalize(folder));
+    }
+
+    /**
+     * Creates a normalized key for an unsorted message repository.
+     *
+     * @param language The language name.
+     * @param pool     The message pool name.
+     * @return The case-insensitive repository key.
+     */
+    public static RepositoryKey of(@NotNull String language, @NotNull String pool) {
+        return new RepositoryKey(TextUtil.normalize(language), TextUtil.normalize(pool), "");
+    }
+}
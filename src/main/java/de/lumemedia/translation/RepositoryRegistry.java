@@ -0,0 +1,107 @@
+package de.lumemedia.translation;
+
+import de.lumemedia.translation.folder.FolderMessageRepository;
+import de.lumemedia.translation.unsorted.UnsortedMessageRepository;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/*
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+public class RepositoryRegistry {
+
+    private final ConcurrentHashMap<RepositoryKey, FolderMessageRepository> folderRepositories = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<RepositoryKey, UnsortedMessageRepository> unsortedRepositories = new ConcurrentHashMap<>();
+    private final Supplier<Catalog> catalogs;
+
+    public RepositoryRegistry() {
+        this(null);
+    }
+
+    /**
+     * @param catalogs The source of the current catalog, which the registered repositories look their pools,
+     *                 render cache and fallback chains up in, or null to bind every repository to the pool of
+     *                 the language it is created for and render without fallbacks.
+     */
+    public RepositoryRegistry(@Nullable Supplier<Catalog> catalogs) {
+        this.catalogs = catalogs;
+    }
+
+    /**
+     * Retrieves the folder message repository for the given parameters, creating it atomically if absent.
+     *
+     * @param language The language associated with the repository.
+     * @param pool     The message pool name.
+     * @param multiKey The multiKey (folder name) within the pool.
+     * @return The folder message repository for the specified parameters.
+     */
+    public FolderMessageRepository folder(@NotNull Language language, @NotNull String pool, @NotNull String multiKey) {
+        var key = RepositoryKey.of(language.name(), pool, multiKey);
+
+        // Plain get first, so a hit never contends on the map's bin locks
+        var receiver = this.folderRepositories.get(key);
+        if (receiver != null) {
+            return receiver;
+        }
+        return this.folderRepositories.computeIfAbsent(key, repositoryKey ->
+                new FolderMessageRepository(language.name(), multiKey, pool, this.catalogs, language, this.renderCache()));
+    }
+
+    /**
+     * Retrieves the unsorted message repository for the given parameters, creating it atomically if absent.
+     *
+     * @param language The language associated with the repository.
+     * @param pool     The message pool name.
+     * @return The unsorted message repository for the specified parameters.
+     */
+    public UnsortedMessageRepository unsorted(@NotNull Language language, @NotNull String pool) {
+        var key = RepositoryKey.of(language.name(), pool);
+
+        // Plain get first, so a hit never contends on the map's bin locks
+        var receiver = this.unsortedRepositories.get(key);
+        if (receiver != null) {
+            return receiver;
+        }
+        return this.unsortedRepositories.computeIfAbsent(key, repositoryKey ->
+                new UnsortedMessageRepository(language.name(), pool, this.catalogs, language, this.renderCache()));
+    }
+
+    private RenderCache renderCache() {
+        // The render cache is handed from each catalog to its successors, so it is the same for every catalog
+        return this.catalogs == null ? null : this.catalogs.get().renderCache();
+    }
+
+    /**
+     * Retrieves a read-only list of all registered folder message repositories.
+     *
+     * @return An unmodifiable copy of the registered folder message repositories.
+     */
+    public List<FolderMessageRepository> folderRepositories() {
+        return List.copyOf(this.folderRepositories.values());
+    }
+
+    /**
+     * Retrieves a read-only list of all registered unsorted message repositories.
+     *
+     * @return An unmodifiable copy of the registered unsorted message repositories.
+     */
+    public List<UnsortedMessageRepository> unsortedRepositories() {
+        return List.copyOf(this.unsortedRepositories.values());
+    }
+}
@@ -4,6 +4,8 @@ import lombok.experimental.UtilityClass;
 import org.bson.Document;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Locale;
+
 /*
  * Copyright 2023-2024 LumeMedia-Translation contributors
  *
@@ -22,6 +24,16 @@ import org.jetbrains.annotations.NotNull;
 @UtilityClass
 public class TextUtil {
 
+    /**
+     * Normalizes a key so that hash lookups behave like {@link String#equalsIgnoreCase(String)}.
+     *
+     * @param key The key to normalize.
+     * @return The lower-cased key, or the same instance if it is already lower-case.
+     */
+    public String normalize(@NotNull String key) {
+        return key.toLowerCase(Locale.ROOT);
+    }
+
     /**
      * Finds a message string from the given document based on the provided key.
      *
@@ -55,20 +67,15 @@ public class TextUtil {
             return "Error";
         }
 
-        // Replace placeholders in the message string with provided objects
-        message = message.replace("{NEXT_LINE}", "\n");
-        if (message.contains("{")) {
-            for (var i = 0; i < objects.length; i++) {
-                message = message.replace("{" + i + "}", String.valueOf(objects[i]));
-            }
-        }
-
-        // Return the built message string
-        return message;
+        // Replace placeholders in the message string with provided objects in a single pass
+        return MessageTemplate.compile(message).render(objects);
     }
 
     /**
      * Builds a message string by replacing placeholders in the message with provided objects.
+     * <p>
+     * This compiles the message on every call; prefer the precompiled {@link Input#template()}
+     * for messages which are rendered repeatedly.
      *
      * @param message The message string containing placeholders.
      * @param objects Objects to replace placeholders in the message string.
@@ -80,16 +87,8 @@ public class TextUtil {
             return null;
         }
 
-        // Replace placeholders in the message string with provided objects
-        message = message.replace("{NEXT_LINE}", "\n");
-        if (message.contains("{")) {
-            for (int i = 0; i < objects.length; i++) {
-                message = message.replace("{" + i + "}", String.valueOf(objects[i]));
-            }
-        }
-
-        // Return the built message string
-        return message;
+        // Replace placeholders in the message string with provided objects in a single pass
+        return MessageTemplate.compile(message).render(objects);
     }
 
 
@@ -3,11 +3,16 @@ package de.lumemedia.translation;
 import dev.golgolex.quala.netty5.client.NettyClient;
 import de.lumemedia.translation.folder.Folder;
 import de.lumemedia.translation.folder.FolderMessageRepository;
+import de.lumemedia.translation.network.ContentDelta;
+import de.lumemedia.translation.persistence.FingerprintStore;
 import de.lumemedia.translation.unsorted.UnsortedMessageRepository;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.function.Predicate;
 
 /*
@@ -40,23 +45,30 @@ public interface TranslationAPI {
     void enableNetworkHandling(@NotNull NettyClient nettyClient);
 
     /**
-     * Retrieves a list of loaded languages.
+     * Retrieves the currently published catalog snapshot.
      *
-     * @return A list of loaded languages.
+     * @return The current catalog.
+     */
+    Catalog catalog();
+
+    /**
+     * Retrieves a read-only list of loaded languages.
+     *
+     * @return The languages of the current catalog.
      */
     List<Language> cachedLanguages();
 
     /**
-     * Retrieves a list of single message repositories.
+     * Retrieves a read-only list of single message repositories.
      *
-     * @return A list of single message repositories.
+     * @return An unmodifiable list of single message repositories.
      */
     List<UnsortedMessageRepository> unsortedRepositories();
 
     /**
-     * Retrieves a list of folder message repositories.
+     * Retrieves a read-only list of folder message repositories.
      *
-     * @return A list of folder message repositories.
+     * @return An unmodifiable list of folder message repositories.
      */
     List<FolderMessageRepository> folderRepositories();
 
@@ -98,6 +110,23 @@ public interface TranslationAPI {
      */
     UnsortedMessageRepository registerMessageRepo(@NotNull Language language, @NotNull String pool);
 
+    /**
+     * Renders a message for an audience, once per distinct language of the recipients. Recipients
+     * without a language receive the message in the first default language. Languages are resolved by
+     * name in the current catalog, and the message renders like {@code repositoryOf(...).message(...)}.
+     *
+     * @param recipients The recipients of the message.
+     * @param language   Extracts the language of a recipient.
+     * @param message    The message to render.
+     * @param objects    The arguments of the message.
+     * @param <R>        The recipient type.
+     * @return The rendered message, grouped by language.
+     */
+    <R> AudienceMessage<R> render(@NotNull Collection<? extends R> recipients,
+                                  @NotNull Function<? super R, Language> language,
+                                  @NotNull MessageHandle message,
+                                  Object... objects);
+
     /**
      * Retrieves a list of default languages.
      *
@@ -105,6 +134,13 @@ public interface TranslationAPI {
      */
     List<Language> defaultLanguages();
 
+    /**
+     * Retrieves the store of the fingerprints of the content injected by translation listeners.
+     *
+     * @return The fingerprint store, or null if listener content is injected on every start.
+     */
+    FingerprintStore contentFingerprints();
+
     /**
      * Retrieves a language by name.
      *
@@ -113,6 +149,16 @@ public interface TranslationAPI {
      */
     Language getLanguage(String s);
 
+    /**
+     * Resolves the language for a client locale tag such as {@code de_at}: the language with the exact
+     * name or tag, otherwise a language with a tag of the same primary subtag, otherwise the first
+     * default language. Case is ignored and the lookup does not allocate.
+     *
+     * @param tag The locale tag.
+     * @return The best matching language, or null if nothing matches and there is no default language.
+     */
+    Language resolveLanguage(@NotNull String tag);
+
     /**
      * Retrieves a language based on a predicate.
      *
@@ -181,6 +227,17 @@ public interface TranslationAPI {
      */
     void injectContent(@NotNull String poolName, @NotNull List<Input> entryList);
 
+    /**
+     * Injects a batch of content for many pools and folders at once.
+     * <p>
+     * The batch is merged into every language in a single pass using the hashed key indices of the
+     * pools, and all changes are persisted by a single flush followed by a single notification.
+     *
+     * @param batch The content to inject.
+     * @return A future which completes once the content is persisted.
+     */
+    CompletableFuture<Void> injectContent(@NotNull ContentBatch batch);
+
     /**
      * Initializes the languages.
      */
@@ -201,17 +258,48 @@ public interface TranslationAPI {
     void createLanguage(@NotNull Language language);
 
     /**
-     * Updates the database.
+     * Writes all tracked content changes to the database.
+     * <p>
+     * Only changed messages and newly created pools are written, using targeted updates
+     * which are sent as a single bulk write.
      */
     void updateDatabase();
 
+    /**
+     * Applies a content delta received from another node through a {@code PacketOutContentDelta}.
+     * <p>
+     * The delta is applied to the catalog in place without touching the database. If a previous delta
+     * of the same origin was missed, all languages are reloaded instead.
+     *
+     * @param delta The received delta.
+     */
+    void applyDelta(@NotNull ContentDelta delta);
+
+    /**
+     * Flushes all pending content changes without waiting for the write-behind window to end.
+     * <p>
+     * Injections are persisted asynchronously; callers which need durability wait for the returned future.
+     *
+     * @return A future which completes once all changes made before this call are persisted.
+     */
+    CompletableFuture<Void> flush();
+
+    /**
+     * Flushes all pending content changes and stops the write-behind flusher.
+     */
+    void shutdown();
+
     /**
      * Reloads all languages.
+     * <p>
+     * Only the revision of each stored language is read first. Languages whose revision matches the
+     * loaded one are kept as they are, changed and new languages are fetched and removed ones dropped.
      */
     void reload();
 
     /**
      * Reloads the languages with the specified name.
+     * The language is only fetched if its stored revision differs from the loaded one.
      *
      * @param name The name of the languages to reload.
      */
@@ -219,7 +307,23 @@ public interface TranslationAPI {
 
     /**
      * Sends an update packet over the network.
+     * <p>
+     * Requests within a short window are merged into a single reload packet, which is always sent,
+     * even if nothing changed in this node's catalog, and tagged with the broadcast sequence number
+     * of this node.
      */
     void sendUpdate();
 
+    /**
+     * Handles a reload packet received from another node.
+     * <p>
+     * Packets which are not newer than the last reload received from the origin are dropped,
+     * all others reload every language. Reloads are numbered by their origin independently of its
+     * deltas and do not advance the delta chain.
+     *
+     * @param origin   The id of the sending node.
+     * @param revision The broadcast sequence number of the sending node.
+     */
+    void handleReload(@NotNull String origin, long revision);
+
 }
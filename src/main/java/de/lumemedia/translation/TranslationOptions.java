@@ -0,0 +1,166 @@
+package de.lumemedia.translation;
+
+import com.mongodb.client.MongoCollection;
+import lombok.Builder;
+import lombok.Getter;
+import org.bson.Document;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+
+/*
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+@Getter
+@Builder
+public class TranslationOptions {
+
+    /**
+     * Whether content changes are persisted asynchronously by a write-behind flusher.
+     * If disabled, every injection writes to the database on the calling thread. Changes still pending
+     * when the JVM exits are lost unless {@code shutdown()} or {@code flush()} was called.
+     */
+    @Builder.Default
+    private final boolean writeBehind = true;
+
+    /**
+     * The window in which changes are coalesced before they are flushed.
+     */
+    @Builder.Default
+    private final Duration flushDelay = Duration.ofMillis(250);
+
+    /**
+     * The number of pending changes which triggers a flush without waiting for the window to end.
+     */
+    @Builder.Default
+    private final int maxBatchSize = 1000;
+
+    /**
+     * The number of pending changes at which writers block until the running flush has completed.
+     */
+    @Builder.Default
+    private final int maxPendingChanges = 20000;
+
+    /**
+     * The number of consecutive failed flushes after which the pending changes are dropped and the futures
+     * of their writers complete exceptionally. Until then every failed flush is retried with the next window.
+     */
+    @Builder.Default
+    private final int maxFlushAttempts = 5;
+
+    /**
+     * The window in which reload broadcasts are merged into a single packet.
+     */
+    @Builder.Default
+    private final Duration broadcastDelay = Duration.ofMillis(50);
+
+    /**
+     * The factory of the scheduler threads, one running flushes and one running broadcasts, snapshots and
+     * reloads. On Java 21+ this may be a virtual thread factory.
+     */
+    @Builder.Default
+    private final ThreadFactory flushThreadFactory = runnable -> {
+        var thread = new Thread(runnable, "translation-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    };
+
+    /**
+     * Whether languages are loaded without their pools. Each pool is then fetched on its first access,
+     * except for the pools listed in {@link #preloadPools()}.
+     */
+    @Builder.Default
+    private final boolean lazyPools = false;
+
+    /**
+     * The names of the pools which are loaded together with the languages in lazy mode.
+     */
+    @Builder.Default
+    private final Set<String> preloadPools = Set.of();
+
+    /**
+     * Whether pools keep the raw bytes of their content and decode a message only when it is first
+     * requested. Only the keys are indexed while loading.
+     */
+    @Builder.Default
+    private final boolean rawStrings = false;
+
+    /**
+     * The number of messages decoded from raw bytes which are kept across the catalog, or 0 to keep every
+     * decoded message in its pool. Evicted messages are decoded again on their next access.
+     */
+    @Builder.Default
+    private final int decodedCacheSize = 0;
+
+    /**
+     * The file of the local catalog snapshot, or null to disable it. With a snapshot, startup serves the
+     * stored languages right away and reconciles them with the database in the background.
+     */
+    @Builder.Default
+    private final Path snapshotFile = null;
+
+    /**
+     * The executor which decodes loaded language documents while the cursor is still being read, or null
+     * to decode them one after another on the loading thread.
+     */
+    @Builder.Default
+    private final Executor deserializationExecutor = ForkJoinPool.commonPool();
+
+    /**
+     * The number of documents fetched per cursor batch while loading languages, or 0 for the driver default.
+     */
+    @Builder.Default
+    private final int cursorBatchSize = 0;
+
+    /**
+     * The maximum number of rendered messages kept by the message repositories, or 0 to disable the
+     * render cache. Only messages with placeholders and immutable arguments are cached.
+     */
+    @Builder.Default
+    private final int renderCacheSize = 0;
+
+    /**
+     * The maximum total length of the rendered messages kept, or 0 to only bound their number. The cache
+     * is split into 16 segments, so messages longer than a sixteenth of this length are not cached.
+     */
+    @Builder.Default
+    private final long renderCacheWeight = 0;
+
+    /**
+     * Whether message repositories look up messages missing in their language in its fallback chain:
+     * the languages named by the {@code fallback} metadata entry (a language name or tag, or an array of
+     * them, followed transitively), then the languages sharing the primary subtag of a tag, e.g. de_de
+     * for de_at, then the default languages. If disabled, missing messages render
+     * {@link MessageTemplate#NOT_FOUND}.
+     */
+    @Builder.Default
+    private final boolean fallbackChains = false;
+
+    /**
+     * The collection which stores the fingerprints of the content injected by translation listeners, or null
+     * to inject listener content on every start. Content whose fingerprint matches the stored one is neither
+     * merged nor written again.
+     */
+    @Builder.Default
+    private final MongoCollection<Document> fingerprintCollection = null;
+
+    public static TranslationOptions defaults() {
+        return TranslationOptions.builder().build();
+    }
+}
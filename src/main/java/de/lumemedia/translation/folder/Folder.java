@@ -1,14 +1,16 @@
 package de.lumemedia.translation.folder;
 
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.experimental.Accessors;
+import de.lumemedia.translation.ColumnarInputList;
+import de.lumemedia.translation.IndexedList;
 import de.lumemedia.translation.Input;
+import de.lumemedia.translation.KeyDictionary;
+import de.lumemedia.translation.Keyed;
+import org.jetbrains.annotations.NotNull;
 
 import java.io.Serializable;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
 
 /*
  * Copyright 2023-2024 LumeMedia-Translation contributors
@@ -27,14 +29,53 @@ import java.util.List;
  */
 @Accessors(fluent = true)
 @Getter
-@AllArgsConstructor
-public class Folder implements Serializable {
-    private final List<Input> rows = new ArrayList<>();
+public class Folder implements Keyed, Serializable {
+    private final IndexedList<Input> rows;
     private String key;
 
+    public Folder(String key) {
+        this(key, new IndexedList<>());
+    }
+
+    public Folder(String key, @NotNull IndexedList<Input> rows) {
+        this.key = key;
+        this.rows = rows;
+    }
+
+    /**
+     * Creates an empty folder whose rows share the key dictionary of the same folder in other languages.
+     *
+     * @param pool The name of the pool the folder belongs to.
+     * @param key  The key of the folder.
+     * @return The folder.
+     */
+    public static Folder of(@NotNull String pool, @NotNull String key) {
+        return new Folder(key, new ColumnarInputList(KeyDictionary.folder(pool, key)));
+    }
+
     public static Folder withEntries(String key, Input... emptyEntries) {
         Folder folder = new Folder(key);
         folder.rows.addAll(Arrays.asList(emptyEntries));
         return folder;
     }
+
+    public Folder copy() {
+        if (this.rows instanceof ColumnarInputList columnar) {
+            return new Folder(this.key, columnar.copy());
+        }
+        Folder folder = new Folder(this.key);
+        folder.rows.addAll(this.rows);
+        return folder;
+    }
+
+    /**
+     * Makes the rows of this folder read-only. Called before the folder is published with a catalog.
+     */
+    public void freeze() {
+        this.rows.freeze();
+    }
+
+    public Input row(@NotNull String messageKey) {
+        return this.rows.find(messageKey);
+    }
 }
@@ -1,9 +1,19 @@
 package de.lumemedia.translation.folder;
 
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Getter;
+import de.lumemedia.translation.Catalog;
+import de.lumemedia.translation.Input;
+import de.lumemedia.translation.Language;
+import de.lumemedia.translation.MessageTemplate;
+import de.lumemedia.translation.RenderCache;
 import de.lumemedia.translation.TextUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /*
  * Copyright 2023-2024 LumeMedia-Translation contributors
@@ -21,21 +31,137 @@ import org.jetbrains.annotations.NotNull;
  * limitations under the License.
  */
 @Getter
-@AllArgsConstructor
 public class FolderMessageRepository {
     private String key;
     private String multiKey;
-    private MultiFolderContentPool multiFolderContentPool;
+    private String poolName;
+    private RenderCache renderCache;
+    // The source of the current catalog the pool is looked up in, or null if the repository is bound to one pool
+    @Getter(AccessLevel.NONE)
+    private Supplier<Catalog> catalogs;
+    // The language the repository was created for, used while the current catalog does not contain it
+    @Getter(AccessLevel.NONE)
+    private Language language;
+    // The normalized names the render cache keys the messages of this repository by
+    @Getter(AccessLevel.NONE)
+    private RenderCache.Scope renderScope;
+    // The pool and fallbacks of the catalog the repository was last used with
+    @Getter(AccessLevel.NONE)
+    private volatile Binding binding;
+
+    public FolderMessageRepository(String key, String multiKey, MultiFolderContentPool multiFolderContentPool) {
+        this.key = key;
+        this.multiKey = multiKey;
+        this.poolName = multiFolderContentPool == null ? null : multiFolderContentPool.poolMame();
+        this.binding = new Binding(null, multiFolderContentPool, List.of());
+    }
+
+    /**
+     * @param key         The name of the language.
+     * @param multiKey    The key of the folder.
+     * @param poolName    The name of the pool.
+     * @param catalogs    The source of the current catalog, or null to always use the pool of the given language.
+     * @param language    The language the repository is created for.
+     * @param renderCache The cache to render through, or null to render every message.
+     */
+    public FolderMessageRepository(String key, String multiKey, String poolName, @Nullable Supplier<Catalog> catalogs,
+                                   @NotNull Language language, @Nullable RenderCache renderCache) {
+        this.key = key;
+        this.multiKey = multiKey;
+        this.poolName = poolName;
+        this.catalogs = catalogs;
+        this.language = language;
+        this.renderCache = renderCache;
+        this.renderScope = renderCache == null ? null : RenderCache.scope(key, poolName, multiKey);
+    }
+
+    /**
+     * @return The pool in the current version of the language, or null if the language has no such pool.
+     */
+    public MultiFolderContentPool multiFolderContentPool() {
+        return this.binding().pool;
+    }
+
+    /**
+     * @return The languages missing messages are currently looked up in, in order.
+     */
+    public List<Language> fallbacks() {
+        return this.binding().fallbacks;
+    }
 
     public boolean containsMessage(String messageKey) {
-        return this.multiFolderContentPool.rawContent(this.multiKey, messageKey) != null;
+        var pool = this.binding().pool;
+        return pool != null && pool.rawContent(this.multiKey, messageKey) != null;
+    }
+
+    public MessageTemplate template(@NotNull String messageKey) {
+        var binding = this.binding();
+        MessageTemplate template = template(binding.pool, this.multiKey, messageKey);
+        if (template != null) {
+            return template;
+        }
+        if (binding.fallbacks.isEmpty()) {
+            return MessageTemplate.NOT_FOUND;
+        }
+
+        // A repeated miss costs a single lookup until the catalog is replaced
+        var normalized = TextUtil.normalize(messageKey);
+        var fallback = binding.misses.get(normalized);
+        if (fallback == null) {
+            fallback = MessageTemplate.NOT_FOUND;
+            for (var language : binding.fallbacks) {
+                var languageTemplate = template(language.folder(this.poolName), this.multiKey, messageKey);
+                if (languageTemplate != null) {
+                    fallback = languageTemplate;
+                    break;
+                }
+            }
+            binding.misses.putIfAbsent(normalized, fallback);
+        }
+        return fallback;
     }
 
     public String message(@NotNull String messageKey, Object... objects) {
-        String rawContent = this.multiFolderContentPool.rawContent(this.multiKey, messageKey);
-        if (rawContent == null) {
-            rawContent = "We are sorry. Unfortunately, this message could not be found in your language.";
+        var template = this.template(messageKey);
+        return this.renderCache == null
+                ? template.render(objects)
+                : this.renderCache.render(this.renderScope, messageKey, template, objects);
+    }
+
+    private Binding binding() {
+        var binding = this.binding;
+        var catalog = this.catalogs == null ? null : this.catalogs.get();
+        if (binding != null && binding.catalog == catalog) {
+            return binding;
+        }
+
+        // The pool is looked up by name in every new catalog, so callers holding an older language never see stale content
+        var language = catalog == null ? null : catalog.language(this.key);
+        if (language == null) {
+            language = this.language;
+        }
+        binding = new Binding(catalog, language.folder(this.poolName), catalog == null ? List.of() : catalog.fallbacks(this.key));
+        this.binding = binding;
+        return binding;
+    }
+
+    private static MessageTemplate template(MultiFolderContentPool pool, String multiKey, String messageKey) {
+        Input input = pool == null ? null : pool.input(multiKey, messageKey);
+        return input == null ? null : input.template();
+    }
+
+    private static final class Binding {
+
+        private final Catalog catalog;
+        private final MultiFolderContentPool pool;
+        private final List<Language> fallbacks;
+        // Messages missing in this language, resolved through the fallback chain once per catalog
+        private final ConcurrentHashMap<String, MessageTemplate> misses = new ConcurrentHashMap<>();
+
+        private Binding(Catalog catalog, MultiFolderContentPool pool, List<Language> fallbacks) {
+            this.catalog = catalog;
+            this.pool = pool;
+            this.fallbacks = fallbacks;
         }
-        return TextUtil.buildMessage(rawContent, objects);
     }
 }
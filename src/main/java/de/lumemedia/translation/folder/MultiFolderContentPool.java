@@ -1,6 +1,7 @@
 package de.lumemedia.translation.folder;
 
 import lombok.Getter;
+import de.lumemedia.translation.IndexedList;
 import de.lumemedia.translation.Input;
 import org.jetbrains.annotations.NotNull;
 
@@ -26,29 +27,87 @@ import java.util.List;
 @Getter
 public class MultiFolderContentPool implements Serializable {
     protected final String poolMame;
-    protected final List<Folder> folders;
+    protected final IndexedList<Folder> folders;
+    protected final long revision;
 
     public MultiFolderContentPool(@NotNull String poolMame) {
         this.poolMame = poolMame;
-        this.folders = new ArrayList<>();
+        this.folders = new IndexedList<>();
+        this.revision = 0;
     }
 
     public MultiFolderContentPool(@NotNull String poolMame, @NotNull ArrayList<Folder> folders) {
+        this(poolMame, folders, 0);
+    }
+
+    public MultiFolderContentPool(@NotNull String poolMame, @NotNull ArrayList<Folder> folders, long revision) {
         this.poolMame = poolMame;
-        this.folders = folders;
+        this.folders = new IndexedList<>(folders);
+        this.revision = revision;
+    }
+
+    /**
+     * Creates a copy of this pool which shares its folders but owns its folder list.
+     *
+     * @return The copied pool.
+     */
+    public MultiFolderContentPool copy() {
+        return new MultiFolderContentPool(this.poolMame, new ArrayList<>(this.folders), this.revision);
+    }
+
+    /**
+     * Makes the folders of this pool and their rows read-only. Called before the pool is published with a catalog.
+     */
+    public void freeze() {
+        // Folders of a frozen list were frozen with it
+        if (this.folders.isFrozen()) {
+            return;
+        }
+        for (var folder : this.folders) {
+            folder.freeze();
+        }
+        this.folders.freeze();
+    }
+
+    /**
+     * Creates a copy of this pool with another revision, sharing its folders.
+     *
+     * @param revision The revision of the copy.
+     * @return The copied pool.
+     */
+    public MultiFolderContentPool withRevision(long revision) {
+        return new MultiFolderContentPool(this.poolMame, new ArrayList<>(this.folders), revision);
+    }
+
+    /**
+     * Creates a copy of this pool with the given folder added or replacing the folder of the same key.
+     * Other folders are shared with this pool.
+     *
+     * @param folder The folder to put.
+     * @return The copied pool.
+     */
+    public MultiFolderContentPool withFolder(@NotNull Folder folder) {
+        var copy = this.copy();
+        copy.folders.put(folder);
+        return copy;
+    }
+
+    public Folder folder(@NotNull String s) {
+        return this.folders.find(s);
     }
 
     public List<Input> content(@NotNull String s) {
-        Folder content = this.folders.stream().filter(languageContent ->
-                languageContent.key().equalsIgnoreCase(s)).findFirst().orElse(null);
+        Folder content = this.folders.find(s);
         return content == null ? null : content.rows();
     }
 
+    public Input input(@NotNull String s, @NotNull String messageKey) {
+        Folder content = this.folders.find(s);
+        return content == null ? null : content.row(messageKey);
+    }
+
     public String rawContent(@NotNull String s, @NotNull String messageKey) {
-        Folder content = this.folders.stream().filter(languageContent ->
-                languageContent.key().equalsIgnoreCase(s)).findFirst().orElse(null);
-        return content == null ? null : content.rows().stream().filter(languageContent ->
-                        languageContent.key().equalsIgnoreCase(messageKey))
-                .map(Input::raw).findFirst().orElse(null);
+        Input input = this.input(s, messageKey);
+        return input == null ? null : input.raw();
     }
 }
@@ -18,37 +18,37 @@ package de.lumemedia.translation.listener;
 
 import dev.golgolex.quala.utils.data.Pair;
 import lombok.Getter;
+import de.lumemedia.translation.ContentBatch;
 import de.lumemedia.translation.Input;
+import de.lumemedia.translation.TextUtil;
 import de.lumemedia.translation.TranslationAPI;
 import lombok.RequiredArgsConstructor;
 import org.jetbrains.annotations.NotNull;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Getter
 @RequiredArgsConstructor
 public class RegisteredTranslationListener {
 
     private final Class<? extends TranslationListener> listener;
-    private final Map<Pair<String, Translation>, List<Input>> content = new HashMap<>();
+    private final Map<Pair<String, Translation>, List<Input>> content = new LinkedHashMap<>();
 
     public void registerContent(@NotNull String methodName, @NotNull TranslationAPI translationAPI) {
         Translation translation = translation(methodName);
-
-        if (translation.system().isEmpty()) {
-            throw new NullPointerException("No system name could be found.");
-        }
+        validate(translation);
 
         switch (translation.type()) {
-            case UNKNOWN -> throw new NullPointerException("No translation type could be found.");
             case FOLDER -> {
-                if (translation.folder().isEmpty()) {
-                    throw new NullPointerException("No folder name could be found.");
-                }
-
                 for (Map.Entry<Pair<String, Translation>, List<Input>> entry : this.content.entrySet()) {
                     if (entry.getKey().second().system().equalsIgnoreCase(translation.system()) &&
                             entry.getKey().second().folder().equalsIgnoreCase(translation.folder())) {
@@ -83,8 +83,126 @@ public class RegisteredTranslationListener {
         return translation;
     }
 
+    /**
+     * Injects the content of all methods with a single injection.
+     *
+     * @param languageManager The language manager to inject the content into.
+     */
     public void registerContentAll(TranslationAPI languageManager) {
-        content.forEach((stringTranslationReturn, contentTemplates) -> this.registerContent(stringTranslationReturn.first(), languageManager));
+        var batch = this.stage(new ContentBatch());
+        if (!batch.isEmpty()) {
+            languageManager.injectContent(batch);
+        }
+    }
+
+    /**
+     * Stages the content of all methods in a batch. Methods with an incomplete annotation are reported and skipped.
+     *
+     * @param batch The batch to stage the content in.
+     * @return The batch.
+     */
+    public ContentBatch stage(@NotNull ContentBatch batch) {
+        return this.stage(batch, Set.of());
+    }
+
+    /**
+     * Stages the content of all methods in a batch, except the content whose fingerprint did not change.
+     *
+     * @param batch     The batch to stage the content in.
+     * @param unchanged The {@link #fingerprintId(Translation) fingerprint ids} of the content to skip.
+     * @return The batch.
+     */
+    public ContentBatch stage(@NotNull ContentBatch batch, @NotNull Set<String> unchanged) {
+        for (Map.Entry<Pair<String, Translation>, List<Input>> entry : this.content.entrySet()) {
+            var translation = entry.getKey().second();
+            try {
+                validate(translation);
+            } catch (NullPointerException e) {
+                e.printStackTrace();
+                continue;
+            }
+            if (entry.getValue() == null || unchanged.contains(this.fingerprintId(translation))) {
+                continue;
+            }
+
+            if (translation.type() == Translation.Type.FOLDER) {
+                batch.folder(translation.system(), translation.folder(), entry.getValue());
+            } else {
+                batch.unsorted(translation.system(), entry.getValue());
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Computes a fingerprint of the content of each system and folder of this listener. The fingerprint covers
+     * the keys and raw messages in method order and the names of the languages, so content is injected
+     * again once a language was added.
+     *
+     * @param languages The names of the languages the content is injected into.
+     * @return The fingerprint of the content by its {@link #fingerprintId(Translation) id}.
+     */
+    public Map<String, String> fingerprints(@NotNull Collection<String> languages) {
+        Map<String, MessageDigest> digests = new LinkedHashMap<>();
+        for (Map.Entry<Pair<String, Translation>, List<Input>> entry : this.content.entrySet()) {
+            var translation = entry.getKey().second();
+            if (entry.getValue() == null || translation.system().isEmpty() || translation.type() == Translation.Type.UNKNOWN) {
+                continue;
+            }
+
+            var digest = digests.computeIfAbsent(this.fingerprintId(translation), s -> {
+                var created = sha256();
+                languages.stream().map(TextUtil::normalize).sorted().forEach(name -> update(created, name));
+                return created;
+            });
+            for (var input : entry.getValue()) {
+                update(digest, input.key());
+                update(digest, input.raw());
+            }
+        }
+
+        Map<String, String> fingerprints = new LinkedHashMap<>();
+        digests.forEach((id, digest) -> fingerprints.put(id, HexFormat.of().formatHex(digest.digest())));
+        return fingerprints;
+    }
+
+    /**
+     * @param translation The annotation of a content method.
+     * @return The id of the fingerprint of the content of this listener in the system and folder of the method.
+     */
+    public String fingerprintId(@NotNull Translation translation) {
+        var folder = translation.type() == Translation.Type.FOLDER ? TextUtil.normalize(translation.folder()) : "";
+        return this.listener.getName() + '/' + TextUtil.normalize(translation.system()) + '/' + folder;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        // Each value is prefixed with its length, so neighbouring values can not be shifted into each other
+        var bytes = value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+        var length = bytes == null ? -1 : bytes.length;
+        digest.update(new byte[]{(byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length});
+        if (bytes != null) {
+            digest.update(bytes);
+        }
+    }
+
+    private static void validate(@NotNull Translation translation) {
+        if (translation.system().isEmpty()) {
+            throw new NullPointerException("No system name could be found.");
+        }
+        if (translation.type() == Translation.Type.UNKNOWN) {
+            throw new NullPointerException("No translation type could be found.");
+        }
+        if (translation.type() == Translation.Type.FOLDER && translation.folder().isEmpty()) {
+            throw new NullPointerException("No folder name could be found.");
+        }
     }
 
 }
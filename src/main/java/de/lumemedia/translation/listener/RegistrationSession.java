@@ -0,0 +1,134 @@
+package de.lumemedia.translation.listener;
+
+/*
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import de.lumemedia.translation.ContentBatch;
+import de.lumemedia.translation.TranslationAPI;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Registers many translation listeners with a single injection.
+ * <p>
+ * Listeners added to the session only have their content methods invoked. On {@link #commit()} the content
+ * of all listeners is merged into one {@link ContentBatch}, which is injected into every language in a single
+ * pass and persisted and announced by a single flush. Content of equal keys is staged in registration order,
+ * the first listener wins.
+ * <pre>{@code
+ * TranslationListenerManager.beginRegistration(translationAPI)
+ *         .registerAll(listeners, executor)
+ *         .commit();
+ * }</pre>
+ */
+public class RegistrationSession {
+
+    private static final Logger LOGGER = Logger.getLogger("TranslationListenerManager");
+
+    private final TranslationAPI translationAPI;
+    private final List<RegisteredTranslationListener> listeners = new ArrayList<>();
+    private boolean committed;
+
+    RegistrationSession(@NotNull TranslationAPI translationAPI) {
+        this.translationAPI = translationAPI;
+    }
+
+    /**
+     * Collects the content of a listener.
+     *
+     * @param listener The translation listener class to register.
+     * @return This session.
+     */
+    public RegistrationSession register(@NotNull Class<? extends TranslationListener> listener) {
+        var registeredTranslationListener = TranslationListenerManager.collect(listener);
+        synchronized (this) {
+            this.checkOpen();
+            this.listeners.add(registeredTranslationListener);
+        }
+        return this;
+    }
+
+    /**
+     * Collects the content of many listeners. The content methods are invoked on the executor, but the
+     * listeners are staged in the order of the collection.
+     *
+     * @param listeners The translation listener classes to register.
+     * @param executor  The executor to invoke the content methods on, or null to invoke them on the calling thread.
+     * @return This session.
+     */
+    public RegistrationSession registerAll(@NotNull Collection<Class<? extends TranslationListener>> listeners, Executor executor) {
+        if (executor == null) {
+            listeners.forEach(this::register);
+            return this;
+        }
+
+        List<CompletableFuture<RegisteredTranslationListener>> futures = new ArrayList<>(listeners.size());
+        for (var listener : listeners) {
+            futures.add(CompletableFuture.supplyAsync(() -> TranslationListenerManager.collect(listener), executor));
+        }
+
+        List<RegisteredTranslationListener> collected = new ArrayList<>(futures.size());
+        for (var future : futures) {
+            try {
+                collected.add(future.join());
+            } catch (CompletionException exception) {
+                // A listener which cannot be collected is skipped, like a failing content method
+                (exception.getCause() == null ? exception : exception.getCause()).printStackTrace();
+            }
+        }
+        synchronized (this) {
+            this.checkOpen();
+            this.listeners.addAll(collected);
+        }
+        return this;
+    }
+
+    /**
+     * Injects the content of all collected listeners at once and registers them.
+     *
+     * @return A future which completes once the content is persisted.
+     */
+    public CompletableFuture<Void> commit() {
+        List<RegisteredTranslationListener> listeners;
+        synchronized (this) {
+            this.checkOpen();
+            this.committed = true;
+            listeners = List.copyOf(this.listeners);
+        }
+
+        // Merge the content of every listener into one batch, which is injected once
+        var future = TranslationListenerManager.inject(listeners, this.translationAPI);
+        var contents = listeners.stream().mapToInt(listener -> listener.content().size()).sum();
+
+        TranslationListenerManager.registered(listeners);
+        LOGGER.log(Level.INFO, "Registered Listeners [" + listeners.size() + "] with contents [" + contents + "]");
+        return future;
+    }
+
+    private void checkOpen() {
+        if (this.committed) {
+            throw new IllegalStateException("The registration session is already committed.");
+        }
+    }
+}
@@ -17,13 +17,23 @@ package de.lumemedia.translation.listener;
  */
 
 import dev.golgolex.quala.utils.data.Pair;
+import de.lumemedia.translation.ContentBatch;
 import de.lumemedia.translation.Input;
+import de.lumemedia.translation.Language;
 import de.lumemedia.translation.TranslationAPI;
 import org.jetbrains.annotations.NotNull;
 
-import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -31,6 +41,8 @@ public class TranslationListenerManager {
 
     private static final List<RegisteredTranslationListener> registeredListeners = new ArrayList<>();
     private static final Logger LOGGER = Logger.getLogger("TranslationListenerManager");
+    // The generated registries of each class loader by their listener, dropped with the last listener of the loader
+    private static final Map<ClassLoader, Map<Class<?>, TranslationRegistry>> generatedRegistries = new ConcurrentHashMap<>();
 
     /**
      * Unregisters a TranslationListener.
@@ -38,22 +50,30 @@ public class TranslationListenerManager {
      * @param listener The class of the TranslationListener to unregister.
      */
     public static void unregisterListener(@NotNull Class<? extends TranslationListener> listener) {
-        // Create a list to store the listeners to remove
-        List<RegisteredTranslationListener> toRemove = new ArrayList<>();
-
-        // Iterate through the registered listeners
-        for (var registeredListener : registeredListeners) {
-            // Check if the listener's package name and class name match the provided listener
-            if (registeredListener.listener().getPackageName().equalsIgnoreCase(listener.getPackageName()) &&
-                    registeredListener.listener().getName().equalsIgnoreCase(listener.getName())) {
-                toRemove.add(registeredListener); // Add the listener to the removal list
+        synchronized (registeredListeners) {
+            // Create a list to store the listeners to remove
+            List<RegisteredTranslationListener> toRemove = new ArrayList<>();
+
+            // Iterate through the registered listeners
+            for (var registeredListener : registeredListeners) {
+                // Check if the listener's package name and class name match the provided listener
+                if (registeredListener.listener().getPackageName().equalsIgnoreCase(listener.getPackageName()) &&
+                        registeredListener.listener().getName().equalsIgnoreCase(listener.getName())) {
+                    toRemove.add(registeredListener); // Add the listener to the removal list
+                }
+            }
+
+            // Iterate through the listeners to remove and remove them from the registered listeners list
+            for (var registeredTranslationListener : toRemove) {
+                registeredListeners.remove(registeredTranslationListener);
+                LOGGER.log(Level.INFO, "Unregistered Listener [" + registeredTranslationListener.listener().getSimpleName() + "]");
             }
-        }
 
-        // Iterate through the listeners to remove and remove them from the registered listeners list
-        for (var registeredTranslationListener : toRemove) {
-            registeredListeners.remove(registeredTranslationListener);
-            LOGGER.log(Level.INFO, "Unregistered Listener [" + registeredTranslationListener.listener().getSimpleName() + "]");
+            // Release the registries of a class loader without listeners, e.g. an unloaded plugin
+            var classLoader = classLoader(listener);
+            if (registeredListeners.stream().noneMatch(registeredListener -> classLoader(registeredListener.listener()) == classLoader)) {
+                generatedRegistries.remove(classLoader);
+            }
         }
     }
 
@@ -64,6 +84,115 @@ public class TranslationListenerManager {
      * @param translationAPI  The language manager to register the listener with.
      */
     public static void registerListener(@NotNull Class<? extends TranslationListener> listener, @NotNull TranslationAPI translationAPI) {
+        register(collect(listener), translationAPI);
+    }
+
+    /**
+     * Registers a translation listener through its generated registry.
+     *
+     * @param registry       The registry generated for the listener.
+     * @param translationAPI The language manager to register the listener with.
+     */
+    public static void registerListener(@NotNull TranslationRegistry registry, @NotNull TranslationAPI translationAPI) {
+        register(collect(registry), translationAPI);
+    }
+
+    /**
+     * Begins a session which registers many listeners with a single injection.
+     *
+     * @param translationAPI The language manager to register the listeners with.
+     * @return The session, which injects nothing until it is committed.
+     */
+    public static RegistrationSession beginRegistration(@NotNull TranslationAPI translationAPI) {
+        return new RegistrationSession(translationAPI);
+    }
+
+    private static void register(RegisteredTranslationListener registeredTranslationListener, TranslationAPI translationAPI) {
+        // All content of the listener is collected first, then injected once
+        inject(List.of(registeredTranslationListener), translationAPI);
+        registered(List.of(registeredTranslationListener));
+        LOGGER.log(Level.INFO, "Registered Listener [" + registeredTranslationListener.listener().getSimpleName() + "] with contents [" + registeredTranslationListener.content().size() + "]");
+    }
+
+    /**
+     * Injects the content of listeners with a single injection. If the API stores content fingerprints, content
+     * whose fingerprint did not change since it was last injected is skipped, and the fingerprints of the
+     * injected content are stored once it is persisted.
+     *
+     * @param listeners      The listeners with their collected content.
+     * @param translationAPI The language manager to inject the content into.
+     * @return A future which completes once the content is persisted.
+     */
+    static CompletableFuture<Void> inject(@NotNull List<RegisteredTranslationListener> listeners, @NotNull TranslationAPI translationAPI) {
+        var fingerprintStore = translationAPI.contentFingerprints();
+        Map<String, String> changed = new LinkedHashMap<>();
+        Set<String> unchanged = new HashSet<>();
+
+        if (fingerprintStore != null) {
+            var languages = translationAPI.cachedLanguages().stream().map(Language::name).toList();
+            for (var listener : listeners) {
+                changed.putAll(listener.fingerprints(languages));
+            }
+            try {
+                // Content with the stored fingerprint is neither merged nor written again
+                var stored = fingerprintStore.load(changed.keySet());
+                for (var entry : stored.entrySet()) {
+                    if (entry.getValue().equals(changed.get(entry.getKey()))) {
+                        unchanged.add(entry.getKey());
+                    }
+                }
+                changed.keySet().removeAll(unchanged);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Could not read the content fingerprints, all listener content is injected", e);
+            }
+        }
+
+        var batch = new ContentBatch();
+        for (var listener : listeners) {
+            listener.stage(batch, unchanged);
+        }
+        if (!unchanged.isEmpty()) {
+            LOGGER.log(Level.INFO, "Skipped unchanged listener contents [" + unchanged.size() + "]");
+        }
+
+        var future = batch.isEmpty() ? CompletableFuture.<Void>completedFuture(null) : translationAPI.injectContent(batch);
+        if (fingerprintStore == null || changed.isEmpty()) {
+            return future;
+        }
+        // Fingerprints are only stored once their content is persisted, so content lost in a failed flush is injected again
+        return future.thenRun(() -> {
+            try {
+                fingerprintStore.store(changed);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Could not store the content fingerprints", e);
+            }
+        });
+    }
+
+    /**
+     * Adds listeners whose content has been injected to the list of registered listeners.
+     */
+    static void registered(@NotNull List<RegisteredTranslationListener> listeners) {
+        synchronized (registeredListeners) {
+            registeredListeners.addAll(listeners);
+        }
+    }
+
+    /**
+     * Invokes the content methods of a listener without injecting their content. The generated registry of
+     * the listener is preferred, without one the methods are found by reflection.
+     *
+     * @param listener The translation listener class.
+     * @return The listener with its content.
+     */
+    @SuppressWarnings("unchecked")
+    static RegisteredTranslationListener collect(@NotNull Class<? extends TranslationListener> listener) {
+        // Prefer the registry generated at compile time, it needs no reflection
+        var registry = generatedRegistry(listener);
+        if (registry != null) {
+            return collect(registry);
+        }
+
         // Get all methods declared in the listener class
         var methods = listener.getDeclaredMethods();
         // Create a new RegisteredTranslationListener instance
@@ -84,16 +213,53 @@ public class TranslationListenerManager {
                                 new Pair<>(methodName, translation),
                                 result
                         );
-                        registeredTranslationListener.registerContentAll(translationAPI);
                     } catch (Exception e) {
                         e.printStackTrace();
                     }
                 }
             }
         }
-        // Add the registered listener to the list of registered listeners
-        registeredListeners.add(registeredTranslationListener);
-        LOGGER.log(Level.INFO, "Registered Listener [" + listener.getSimpleName() + "] with contents [" + registeredTranslationListener.content().size() + "]");
+        return registeredTranslationListener;
+    }
+
+    static RegisteredTranslationListener collect(@NotNull TranslationRegistry registry) {
+        var registeredTranslationListener = new RegisteredTranslationListener(registry.listener());
+        for (var entry : registry.entries()) {
+            try {
+                registeredTranslationListener.content().put(new Pair<>(entry.method(), entry.translation()), entry.content().get());
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        return registeredTranslationListener;
+    }
+
+    private static TranslationRegistry generatedRegistry(Class<? extends TranslationListener> listener) {
+        // The services of a class loader are only scanned once, no matter how many listeners it registers
+        return generatedRegistries.computeIfAbsent(classLoader(listener), TranslationListenerManager::discoverRegistries).get(listener);
+    }
+
+    private static Map<Class<?>, TranslationRegistry> discoverRegistries(ClassLoader classLoader) {
+        Map<Class<?>, TranslationRegistry> registries = new HashMap<>();
+        var providers = ServiceLoader.load(TranslationRegistry.class, classLoader).stream().iterator();
+        while (true) {
+            try {
+                if (!providers.hasNext()) {
+                    break;
+                }
+                var registry = providers.next().get();
+                registries.putIfAbsent(registry.listener(), registry);
+            } catch (ServiceConfigurationError error) {
+                // A stale or broken service entry only sends its own listener to reflection
+                LOGGER.log(Level.WARNING, "Could not load a generated translation registry", error);
+            }
+        }
+        return registries;
+    }
+
+    private static ClassLoader classLoader(Class<?> listener) {
+        var classLoader = listener.getClassLoader();
+        return classLoader == null ? ClassLoader.getSystemClassLoader() : classLoader;
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package de.lumemedia.translation.listener;
+
+/*
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import de.lumemedia.translation.Input;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.annotation.Annotation;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * The {@link Translation} methods of a listener, enumerated at compile time.
+ * <p>
+ * Implementations are generated by the translation annotation processor for every {@link TranslationListener}
+ * and registered as services, so {@link TranslationListenerManager} can register a listener without
+ * reflecting over its methods.
+ */
+public interface TranslationRegistry {
+
+    /**
+     * @return The listener class whose methods this registry enumerates.
+     */
+    Class<? extends TranslationListener> listener();
+
+    /**
+     * Creates an instance of the listener and enumerates its content methods.
+     *
+     * @return The content methods of the listener.
+     */
+    List<Entry> entries();
+
+    /**
+     * Creates the annotation of a content method from its values.
+     *
+     * @param system The system of the content.
+     * @param folder The folder of the content.
+     * @param type   The type of the content.
+     * @return The annotation.
+     */
+    static Translation translation(@NotNull String system, @NotNull String folder, @NotNull Translation.Type type) {
+        return new Literal(system, folder, type);
+    }
+
+    /**
+     * A content method of a listener.
+     *
+     * @param method      The name of the method.
+     * @param translation The annotation of the method.
+     * @param content     Invokes the method.
+     */
+    record Entry(@NotNull String method, @NotNull Translation translation, @NotNull Supplier<List<Input>> content) {
+    }
+
+    /**
+     * The values of a {@link Translation} annotation, created without reflection.
+     */
+    record Literal(String system, String folder, Translation.Type type) implements Translation {
+
+        @Override
+        public Class<? extends Annotation> annotationType() {
+            return Translation.class;
+        }
+    }
+}
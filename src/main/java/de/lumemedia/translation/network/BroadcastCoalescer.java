@@ -0,0 +1,117 @@
+package de.lumemedia.translation.network;
+
+/*
+ * MIT License
+ *
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Merges reload broadcasts which are requested within a short window into a single broadcast.
+ * <p>
+ * Automatic requests are dropped if the catalog revision did not change since the last broadcast, while
+ * forced requests, e.g. an explicit update after the database was edited directly, are always sent.
+ * Every broadcast is tagged with a sequence number increasing with each broadcast of this node, so
+ * receivers can drop duplicates and broadcasts older than the last one they handled.
+ */
+public class BroadcastCoalescer {
+
+    private final ScheduledExecutorService executor;
+    private final Duration delay;
+    private final LongSupplier revision;
+    private final LongConsumer sender;
+    private final Object monitor = new Object();
+
+    private boolean pending;
+    private boolean forced;
+    private long lastSentRevision = -1;
+    private long sequence;
+
+    /**
+     * Creates a coalescer.
+     *
+     * @param executor The scheduler sending the broadcasts.
+     * @param delay    The window in which requests are merged.
+     * @param revision The supplier of the current catalog revision.
+     * @param sender   The action sending a broadcast tagged with the given sequence number.
+     */
+    public BroadcastCoalescer(@NotNull ScheduledExecutorService executor, @NotNull Duration delay,
+                              @NotNull LongSupplier revision, @NotNull LongConsumer sender) {
+        this.executor = executor;
+        this.delay = delay;
+        this.revision = revision;
+        this.sender = sender;
+    }
+
+    /**
+     * Requests a broadcast. Requests within the window of a pending broadcast are merged into it.
+     */
+    public void request() {
+        this.request(false);
+    }
+
+    /**
+     * Requests a broadcast. Requests within the window of a pending broadcast are merged into it.
+     *
+     * @param force Whether the broadcast is sent even if the catalog revision did not change since the last one.
+     */
+    public void request(boolean force) {
+        synchronized (this.monitor) {
+            this.forced |= force;
+            if (this.pending) {
+                return;
+            }
+            this.pending = true;
+        }
+        this.executor.schedule(this::send, this.delay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void send() {
+        long sequence;
+        synchronized (this.monitor) {
+            this.pending = false;
+            var revision = this.revision.getAsLong();
+            var forced = this.forced;
+            this.forced = false;
+
+            // Nothing changed since the last broadcast, and nobody asked for one regardless
+            if (!forced && revision == this.lastSentRevision) {
+                return;
+            }
+            this.lastSentRevision = revision;
+            sequence = ++this.sequence;
+        }
+
+        try {
+            this.sender.accept(sequence);
+        } catch (Exception exception) {
+            exception.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package de.lumemedia.translation.network;
+
+/*
+ * MIT License
+ *
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import dev.golgolex.quala.netty5.protocol.codec.CodecBuffer;
+import de.lumemedia.translation.Catalog;
+import de.lumemedia.translation.Input;
+import de.lumemedia.translation.Language;
+import de.lumemedia.translation.TextUtil;
+import de.lumemedia.translation.folder.Folder;
+import de.lumemedia.translation.folder.MultiFolderContentPool;
+import de.lumemedia.translation.persistence.ChangeSet;
+import de.lumemedia.translation.persistence.PoolType;
+import de.lumemedia.translation.unsorted.UnsortedContentPool;
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The content changes a node has persisted since its previous broadcast.
+ * <p>
+ * A delta only carries the changed (language, pool, folder, key, raw) tuples, so peers can apply it
+ * to their catalog in place instead of reloading every language from the database. The revisions
+ * chain the deltas of one origin: a receiver that has not seen {@link #baseRevision()} from the origin
+ * missed a delta and has to reload instead.
+ * <p>
+ * A delta also carries the revisions the origin stored for the written languages and pools, so peers
+ * publish the same revisions and a later reload finds those languages unchanged.
+ */
+@Getter
+public class ContentDelta {
+
+    private final String origin;
+    private final long baseRevision;
+    private final long revision;
+    private final List<Entry> entries;
+    private final List<Revision> revisions;
+
+    public ContentDelta(@NotNull String origin, long baseRevision, long revision, @NotNull List<Entry> entries) {
+        this(origin, baseRevision, revision, entries, List.of());
+    }
+
+    public ContentDelta(@NotNull String origin, long baseRevision, long revision, @NotNull List<Entry> entries,
+                        @NotNull List<Revision> revisions) {
+        this.origin = origin;
+        this.baseRevision = baseRevision;
+        this.revision = revision;
+        this.entries = entries;
+        this.revisions = revisions;
+    }
+
+    /**
+     * Creates the delta of the given changes with the values of the given catalog.
+     *
+     * @param origin       The id of the sending node.
+     * @param baseRevision The revision of the previous delta of the sending node.
+     * @param changes      The persisted changes.
+     * @param catalog      The catalog to read the current values from.
+     * @return The delta.
+     */
+    public static ContentDelta of(@NotNull String origin, long baseRevision, @NotNull ChangeSet changes, @NotNull Catalog catalog) {
+        List<Entry> entries = new ArrayList<>();
+        List<Revision> revisions = new ArrayList<>();
+        for (var languageChanges : changes.languages()) {
+            var language = catalog.language(languageChanges.name());
+            if (language == null) {
+                continue;
+            }
+            revisions.add(new Revision(language.name(), null, null, language.revision()));
+
+            for (var poolChanges : languageChanges.pools().values()) {
+                var type = poolChanges.type();
+                var pool = poolChanges.pool();
+                var poolRevision = (poolChanges.rewrite() || !poolChanges.keys().isEmpty()) && !language.isPending(type, pool)
+                        ? revision(language, type, pool) : -1;
+                if (poolRevision >= 0) {
+                    revisions.add(new Revision(language.name(), type, pool, poolRevision));
+                }
+
+                // Announce created pools, so they exist on the peers even without content
+                if (poolChanges.created()) {
+                    entries.add(new Entry(language.name(), type, pool, "", null, null));
+                }
+                for (var contentKey : poolChanges.keys()) {
+                    entries.add(new Entry(language.name(), type, pool, contentKey.folder(), contentKey.key(),
+                            raw(language, type, pool, contentKey)));
+                }
+            }
+        }
+        return new ContentDelta(origin, baseRevision, catalog.revision(), entries, revisions);
+    }
+
+    /**
+     * Reads a delta from a buffer.
+     *
+     * @param codecBuffer The buffer to read from.
+     * @return The delta.
+     */
+    public static ContentDelta read(@NotNull CodecBuffer codecBuffer) {
+        var origin = codecBuffer.readString();
+        var baseRevision = codecBuffer.readLong();
+        var revision = codecBuffer.readLong();
+        var entries = codecBuffer.readList(new ArrayList<>(), () -> {
+            var language = codecBuffer.readString();
+            var type = codecBuffer.readBoolean() ? PoolType.FOLDER : PoolType.UNSORTED;
+            var pool = codecBuffer.readString();
+            var folder = codecBuffer.readString();
+            var key = codecBuffer.readBoolean() ? codecBuffer.readString() : null;
+            var raw = codecBuffer.readBoolean() ? codecBuffer.readString() : null;
+            return new Entry(language, type, pool, folder, key, raw);
+        });
+        var revisions = codecBuffer.readList(new ArrayList<>(), () -> {
+            var language = codecBuffer.readString();
+            // The revision of the language itself has no pool
+            PoolType type = null;
+            String pool = null;
+            if (codecBuffer.readBoolean()) {
+                type = codecBuffer.readBoolean() ? PoolType.FOLDER : PoolType.UNSORTED;
+                pool = codecBuffer.readString();
+            }
+            return new Revision(language, type, pool, codecBuffer.readLong());
+        });
+        return new ContentDelta(origin, baseRevision, revision, entries, revisions);
+    }
+
+    /**
+     * Writes this delta to a buffer.
+     *
+     * @param codecBuffer The buffer to write to.
+     */
+    public void write(@NotNull CodecBuffer codecBuffer) {
+        codecBuffer.writeString(this.origin)
+                .writeLong(this.baseRevision)
+                .writeLong(this.revision);
+        codecBuffer.writeList(this.entries, (entryBuf, entry) -> {
+            entryBuf.writeString(entry.language())
+                    .writeBoolean(entry.type() == PoolType.FOLDER)
+                    .writeString(entry.pool())
+                    .writeString(entry.folder())
+                    .writeBoolean(entry.key() != null);
+            if (entry.key() != null) entryBuf.writeString(entry.key());
+            entryBuf.writeBoolean(entry.raw() != null);
+            if (entry.raw() != null) entryBuf.writeString(entry.raw());
+        });
+        codecBuffer.writeList(this.revisions, (revisionBuf, revision) -> {
+            revisionBuf.writeString(revision.language())
+                    .writeBoolean(revision.type() != null);
+            if (revision.type() != null) {
+                revisionBuf.writeBoolean(revision.type() == PoolType.FOLDER)
+                        .writeString(revision.pool());
+            }
+            revisionBuf.writeLong(revision.revision());
+        });
+    }
+
+    /**
+     * Applies this delta to the languages of a catalog. Only the affected pools and folders are copied,
+     * everything else is shared with the given catalog.
+     *
+     * @param catalog The catalog to apply the delta to.
+     * @return The languages of the successor catalog.
+     */
+    public List<Language> applyTo(@NotNull Catalog catalog) {
+        Map<String, List<Entry>> entriesByLanguage = new HashMap<>();
+        for (var entry : this.entries) {
+            entriesByLanguage.computeIfAbsent(TextUtil.normalize(entry.language()), s -> new ArrayList<>()).add(entry);
+        }
+        Map<String, List<Revision>> revisionsByLanguage = new HashMap<>();
+        for (var revision : this.revisions) {
+            revisionsByLanguage.computeIfAbsent(TextUtil.normalize(revision.language()), s -> new ArrayList<>()).add(revision);
+        }
+
+        var languages = new ArrayList<>(catalog.languages());
+        for (var i = 0; i < languages.size(); i++) {
+            var language = languages.get(i);
+            var languageEntries = entriesByLanguage.getOrDefault(TextUtil.normalize(language.name()), List.of());
+            var languageRevisions = revisionsByLanguage.getOrDefault(TextUtil.normalize(language.name()), List.of());
+            if (languageEntries.isEmpty() && languageRevisions.isEmpty()) {
+                continue;
+            }
+
+            Map<String, MultiFolderContentPool> folderPools = new LinkedHashMap<>();
+            Map<String, UnsortedContentPool> unsortedPools = new LinkedHashMap<>();
+            Map<String, Folder> folders = new HashMap<>();
+
+            for (var entry : languageEntries) {
+                // Pools which were not fetched yet are read from the database with the change on first access
+                if (language.isPending(entry.type(), entry.pool())) {
+                    continue;
+                }
+                if (entry.type() == PoolType.FOLDER) {
+                    // Copy each affected pool and folder once
+                    var pool = folderPools.computeIfAbsent(TextUtil.normalize(entry.pool()), s -> {
+                        var existing = language.folder(entry.pool());
+                        return existing == null
+                                ? new MultiFolderContentPool(entry.pool())
+                                : existing.copy();
+                    });
+                    if (entry.key() == null) {
+                        continue;
+                    }
+                    var folder = folders.computeIfAbsent(TextUtil.normalize(entry.pool()) + '\n' + TextUtil.normalize(entry.folder()), s -> {
+                        var existing = pool.folder(entry.folder());
+                        var copy = existing == null ? Folder.of(entry.pool(), entry.folder()) : existing.copy();
+                        pool.folders().put(copy);
+                        return copy;
+                    });
+                    if (entry.raw() == null) {
+                        folder.rows().removeKey(entry.key());
+                    } else {
+                        folder.rows().put(new Input(entry.key(), entry.raw()));
+                    }
+                } else {
+                    // Copy each affected pool once
+                    var pool = unsortedPools.computeIfAbsent(TextUtil.normalize(entry.pool()), s -> {
+                        var existing = language.unsorted(entry.pool());
+                        return existing == null
+                                ? new UnsortedContentPool(entry.pool())
+                                : existing.withInputs(List.of());
+                    });
+                    if (entry.key() == null) {
+                        continue;
+                    }
+                    if (entry.raw() == null) {
+                        pool.inputs().removeKey(entry.key());
+                    } else {
+                        pool.inputs().put(new Input(entry.key(), entry.raw()));
+                    }
+                }
+            }
+
+            var updated = language;
+            for (var pool : folderPools.values()) {
+                updated = updated.withFolderPool(pool);
+            }
+            for (var pool : unsortedPools.values()) {
+                updated = updated.withUnsortedPool(pool);
+            }
+
+            // Take over the revisions the origin stored, pools which were not fetched yet come with theirs
+            for (var revision : languageRevisions) {
+                if (revision.type() == null) {
+                    updated = updated.withRevision(revision.revision());
+                } else if (!updated.isPending(revision.type(), revision.pool())) {
+                    if (revision.type() == PoolType.FOLDER) {
+                        var pool = updated.folder(revision.pool());
+                        if (pool != null) {
+                            updated = updated.withFolderPool(pool.withRevision(revision.revision()));
+                        }
+                    } else {
+                        var pool = updated.unsorted(revision.pool());
+                        if (pool != null) {
+                            updated = updated.withUnsortedPool(pool.withRevision(revision.revision()));
+                        }
+                    }
+                }
+            }
+            languages.set(i, updated);
+        }
+        return languages;
+    }
+
+    private static long revision(Language language, PoolType type, String pool) {
+        if (type == PoolType.FOLDER) {
+            var multiFolderContentPool = language.folder(pool);
+            return multiFolderContentPool == null ? -1 : multiFolderContentPool.revision();
+        }
+        var unsortedContentPool = language.unsorted(pool);
+        return unsortedContentPool == null ? -1 : unsortedContentPool.revision();
+    }
+
+    private static String raw(Language language, PoolType type, String pool, ChangeSet.ContentKey contentKey) {
+        if (type == PoolType.FOLDER) {
+            var multiFolderContentPool = language.folder(pool);
+            return multiFolderContentPool == null ? null : multiFolderContentPool.rawContent(contentKey.folder(), contentKey.key());
+        }
+        var unsortedContentPool = language.unsorted(pool);
+        return unsortedContentPool == null ? null : unsortedContentPool.rawContent(contentKey.key());
+    }
+
+    /**
+     * A single changed message. A null key announces a created pool, a null raw value a removed message.
+     */
+    public record Entry(@NotNull String language, @NotNull PoolType type, @NotNull String pool,
+                        @NotNull String folder, @Nullable String key, @Nullable String raw) {
+    }
+
+    /**
+     * The revision the origin stored for a written language, or for one of its pools if a pool is given.
+     */
+    public record Revision(@NotNull String language, @Nullable PoolType type, @Nullable String pool, long revision) {
+    }
+}
@@ -27,10 +27,13 @@ package de.lumemedia.translation.network;
 import dev.golgolex.quala.netty5.client.NettyClient;
 import lombok.Getter;
 import de.lumemedia.translation.Language;
+import de.lumemedia.translation.network.protocol.PacketOutContentDelta;
 import de.lumemedia.translation.network.protocol.PacketOutLanguageCreation;
 import de.lumemedia.translation.network.protocol.PacketOutLanguageUpdate;
 import de.lumemedia.translation.network.protocol.PacketOutLanguagesReload;
 
+import java.util.List;
+
 @Getter
 public class TranslationNetworkManager {
 
@@ -53,6 +56,11 @@ public class TranslationNetworkManager {
                 -8576,
                 integer -> new PacketOutLanguagesReload(new Language())
         );
+        this.nettyClient.packetRegistry().register(
+                PacketOutContentDelta.class,
+                -8577,
+                integer -> new PacketOutContentDelta(new ContentDelta("", 0, 0, List.of()))
+        );
     }
 
 }
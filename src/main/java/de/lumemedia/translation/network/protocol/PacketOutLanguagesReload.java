@@ -34,6 +34,8 @@ import java.io.Serializable;
 @Getter
 public class PacketOutLanguagesReload extends Packet implements Serializable {
     private final Language language;
+    private final String origin;
+    private final long revision;
 
     public PacketOutLanguagesReload(CodecBuffer buffer) {
         super(-8576, buffer);
@@ -44,17 +46,29 @@ public class PacketOutLanguagesReload extends Packet implements Serializable {
         } else {
             this.language = null;
         }
+        this.origin = buffer.readString();
+        this.revision = buffer.readLong();
     }
 
     public PacketOutLanguagesReload(Language language) {
+        this(language, "", 0);
+    }
+
+    public PacketOutLanguagesReload(Language language, String origin, long revision) {
         super(-8576);
 
-        buffer.writeBoolean(language.name().equalsIgnoreCase("null"));
-        if (language.name().equalsIgnoreCase("null")) {
+        // The placeholder language named "null" requests a reload of all languages and is not sent
+        var single = language.name() != null && !language.name().equalsIgnoreCase("null");
+        buffer.writeBoolean(single);
+        if (single) {
             this.language = language;
             this.language.writeBuf(buffer);
         } else {
             this.language = null;
         }
+
+        this.origin = origin;
+        this.revision = revision;
+        buffer.writeString(origin).writeLong(revision);
     }
 }
@@ -0,0 +1,238 @@
+package de.lumemedia.translation.persistence;
+
+/*
+ * MIT License
+ *
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import de.lumemedia.translation.Catalog;
+import de.lumemedia.translation.Language;
+import de.lumemedia.translation.serialize.MultiFolderContentPoolSerializer;
+import de.lumemedia.translation.serialize.UnsortedContentPoolSerializer;
+import lombok.AllArgsConstructor;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Translates a {@link ChangeSet} into targeted updates of the language documents.
+ * <p>
+ * Changed messages are written with {@code $set}/{@code $unset} on dotted paths such as
+ * {@code multiFolderContentPools.$[m0].content.folder.key}, where the array filter selects the pool
+ * by name. New pools are pushed as a whole, pools which can not be addressed by paths have their
+ * whole content rewritten. All updates of one flush are sent as a single unordered bulk write.
+ * <p>
+ * Every written language and pool has its {@code revision} counter incremented in the same update, so
+ * other nodes can tell which documents changed without reading their content.
+ */
+@AllArgsConstructor
+public class CatalogWriter {
+
+    private static final BulkWriteOptions UNORDERED = new BulkWriteOptions().ordered(false);
+
+    private final MongoCollection<Document> mongoCollection;
+    private final UnsortedContentPoolSerializer unsortedContentPoolSerializer;
+    private final MultiFolderContentPoolSerializer multiFolderContentPoolSerializer;
+
+    /**
+     * Persists the given changes with the values of the given catalog.
+     *
+     * @param changes The changes to persist.
+     * @param catalog The catalog to read the current values from.
+     * @return The result of the bulk write, or null if there was nothing to write.
+     */
+    public BulkWriteResult write(@NotNull ChangeSet changes, @NotNull Catalog catalog) {
+        var models = this.models(changes, catalog);
+        if (models.isEmpty()) {
+            return null;
+        }
+        return this.mongoCollection.bulkWrite(models, UNORDERED);
+    }
+
+    /**
+     * Builds the write models for the given changes with the values of the given catalog.
+     *
+     * @param changes The changes to persist.
+     * @param catalog The catalog to read the current values from.
+     * @return The write models, at most one update plus one push per created pool for each language.
+     */
+    public List<WriteModel<Document>> models(@NotNull ChangeSet changes, @NotNull Catalog catalog) {
+        List<WriteModel<Document>> models = new ArrayList<>();
+
+        for (var languageChanges : changes.languages()) {
+            // Languages which are gone from the catalog have nothing left to write
+            var language = catalog.language(languageChanges.name());
+            if (language == null) {
+                continue;
+            }
+
+            var filter = Filters.eq("name", language.name());
+            var set = new Document();
+            var unset = new Document();
+            var inc = new Document("revision", 1L);
+            List<Bson> arrayFilters = new ArrayList<>();
+            var identifiers = 0;
+
+            for (var poolChanges : languageChanges.pools().values()) {
+                // Pools without any change must not contribute an (unused) array filter
+                if (!poolChanges.rewrite() && poolChanges.keys().isEmpty()) {
+                    continue;
+                }
+
+                var type = poolChanges.type();
+                var poolName = poolName(language, type, poolChanges.pool());
+                if (poolName == null) {
+                    continue;
+                }
+
+                var identifier = type.identifierPrefix() + identifiers++;
+                var element = type.field() + ".$[" + identifier + "]";
+                arrayFilters.add(Filters.eq(identifier + ".pool", poolName));
+
+                // Paths can not address keys containing dots or starting with '$', those pools are rewritten
+                var rewrite = poolChanges.rewrite() || poolChanges.keys().stream().anyMatch(contentKey ->
+                        !safeField(contentKey.key()) || (type == PoolType.FOLDER && !safeField(contentKey.folder())));
+
+                inc.append(element + ".revision", 1L);
+                if (rewrite) {
+                    var serialized = this.serializePool(language, type, poolName);
+
+                    // Push created pools unless another node already did so, the $set below covers that case.
+                    // Only a pushed pool starts at its local revision, a stored pool keeps counting up from its stored one
+                    if (poolChanges.created()) {
+                        models.add(new UpdateOneModel<>(
+                                Filters.and(filter, Filters.ne(type.field() + ".pool", poolName)),
+                                Updates.push(type.field(), serialized)
+                        ));
+                    }
+                    set.append(element + ".pool", serialized.get("pool"));
+                    set.append(element + ".content", serialized.get("content"));
+                    continue;
+                }
+
+                for (var contentKey : poolChanges.keys()) {
+                    var path = type == PoolType.FOLDER
+                            ? element + ".content." + contentKey.folder() + "." + contentKey.key()
+                            : element + ".content." + contentKey.key();
+                    var raw = raw(language, type, poolName, contentKey);
+                    if (raw == null) {
+                        unset.append(path, "");
+                    } else {
+                        set.append(path, raw);
+                    }
+                }
+            }
+
+            if (set.isEmpty() && unset.isEmpty()) {
+                continue;
+            }
+
+            var update = new Document();
+            if (!set.isEmpty()) update.append("$set", set);
+            if (!unset.isEmpty()) update.append("$unset", unset);
+            update.append("$inc", inc);
+            models.add(new UpdateOneModel<>(filter, update, new UpdateOptions().arrayFilters(arrayFilters)));
+        }
+
+        return models;
+    }
+
+    /**
+     * Applies the revision increments of a write of the given changes to the languages of the given catalog,
+     * so the published languages carry the revisions which were just stored.
+     *
+     * @param changes The persisted changes.
+     * @param catalog The catalog the changes were written from.
+     * @return The languages of the successor catalog.
+     */
+    public static List<Language> advanceRevisions(@NotNull ChangeSet changes, @NotNull Catalog catalog) {
+        var languages = new ArrayList<>(catalog.languages());
+        for (var languageChanges : changes.languages()) {
+            var language = catalog.language(languageChanges.name());
+            if (language == null) {
+                continue;
+            }
+
+            var updated = language;
+            for (var poolChanges : languageChanges.pools().values()) {
+                // Pools which were not fetched yet are read with their stored revision on first access
+                var type = poolChanges.type();
+                if (!poolChanges.rewrite() && poolChanges.keys().isEmpty() || language.isPending(type, poolChanges.pool())) {
+                    continue;
+                }
+                if (type == PoolType.FOLDER) {
+                    var pool = updated.folder(poolChanges.pool());
+                    if (pool != null) {
+                        updated = updated.withFolderPool(pool.withRevision(pool.revision() + 1));
+                    }
+                } else {
+                    var pool = updated.unsorted(poolChanges.pool());
+                    if (pool != null) {
+                        updated = updated.withUnsortedPool(pool.withRevision(pool.revision() + 1));
+                    }
+                }
+            }
+
+            // Every language with a written pool has its revision incremented along with the pools
+            if (updated != language) {
+                languages.set(languages.indexOf(language), updated.withRevision(language.revision() + 1));
+            }
+        }
+        return languages;
+    }
+
+    static String poolName(Language language, PoolType type, String pool) {
+        if (type == PoolType.FOLDER) {
+            var multiFolderContentPool = language.folder(pool);
+            return multiFolderContentPool == null ? null : multiFolderContentPool.poolMame();
+        }
+        var unsortedContentPool = language.unsorted(pool);
+        return unsortedContentPool == null ? null : unsortedContentPool.poolMame();
+    }
+
+    private Document serializePool(Language language, PoolType type, String pool) {
+        return type == PoolType.FOLDER
+                ? this.multiFolderContentPoolSerializer.serialize(language.folder(pool))
+                : this.unsortedContentPoolSerializer.serialize(language.unsorted(pool));
+    }
+
+    static String raw(Language language, PoolType type, String pool, ChangeSet.ContentKey contentKey) {
+        return type == PoolType.FOLDER
+                ? language.folder(pool).rawContent(contentKey.folder(), contentKey.key())
+                : language.unsorted(pool).rawContent(contentKey.key());
+    }
+
+    static boolean safeField(String field) {
+        return !field.isEmpty() && field.indexOf('.') < 0 && field.charAt(0) != '$';
+    }
+}
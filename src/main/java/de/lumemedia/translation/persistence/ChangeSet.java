@@ -0,0 +1,140 @@
+package de.lumemedia.translation.persistence;
+
+/*
+ * MIT License
+ *
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import de.lumemedia.translation.TextUtil;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A set of content changes, grouped by language and pool, which still has to be persisted.
+ * <p>
+ * Only the location of a change is recorded. The value to write is read from the catalog at flush
+ * time, so repeated changes of the same key coalesce into a single write of the latest value.
+ */
+public class ChangeSet {
+
+    private final Map<String, LanguageChanges> languages = new LinkedHashMap<>();
+
+    /**
+     * Retrieves the changes of a language, creating an empty entry if absent.
+     *
+     * @param language The name of the language.
+     * @return The changes of the language.
+     */
+    public LanguageChanges language(@NotNull String language) {
+        return this.languages.computeIfAbsent(TextUtil.normalize(language), s -> new LanguageChanges(language));
+    }
+
+    public Collection<LanguageChanges> languages() {
+        return this.languages.values();
+    }
+
+    public boolean isEmpty() {
+        return this.size() == 0;
+    }
+
+    /**
+     * Counts the recorded changes, where a pool rewrite counts as a single change.
+     *
+     * @return The number of recorded changes.
+     */
+    public int size() {
+        var size = 0;
+        for (var language : this.languages.values()) {
+            for (var pool : language.pools().values()) {
+                size += pool.rewrite() ? 1 : pool.keys().size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Adds all changes of the given set to this set.
+     *
+     * @param other The changes to merge.
+     */
+    public void merge(@NotNull ChangeSet other) {
+        for (var language : other.languages.values()) {
+            var target = this.language(language.name());
+            for (var pool : language.pools().values()) {
+                var targetPool = target.pool(pool.type(), pool.pool());
+                targetPool.created |= pool.created();
+                targetPool.rewrite |= pool.rewrite();
+                targetPool.keys().addAll(pool.keys());
+            }
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class LanguageChanges {
+        private final String name;
+        private final Map<String, PoolChanges> pools = new LinkedHashMap<>();
+
+        /**
+         * Retrieves the changes of a pool, creating an empty entry if absent.
+         *
+         * @param type The type of the pool.
+         * @param pool The name of the pool.
+         * @return The changes of the pool.
+         */
+        public PoolChanges pool(@NotNull PoolType type, @NotNull String pool) {
+            return this.pools.computeIfAbsent(type.name() + ':' + TextUtil.normalize(pool), s -> new PoolChanges(type, pool));
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class PoolChanges {
+        private final PoolType type;
+        private final String pool;
+        private final Set<ContentKey> keys = new LinkedHashSet<>();
+        private boolean created;
+        private boolean rewrite;
+
+        public void markCreated() {
+            this.created = true;
+            this.rewrite = true;
+        }
+
+        public void markRewrite() {
+            this.rewrite = true;
+        }
+    }
+
+    /**
+     * The location of a message within a pool. The folder is empty for unsorted pools.
+     */
+    public record ContentKey(@NotNull String folder, @NotNull String key) {
+    }
+}
@@ -0,0 +1,98 @@
+package de.lumemedia.translation.persistence;
+
+/*
+ * MIT License
+ *
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Thread-safe collector of content changes which have not been persisted yet.
+ */
+public class ChangeTracker {
+
+    private ChangeSet pending = new ChangeSet();
+
+    /**
+     * Marks a single message as changed.
+     *
+     * @param language The name of the language.
+     * @param type     The type of the pool.
+     * @param pool     The name of the pool.
+     * @param folder   The name of the folder, or an empty string for unsorted pools.
+     * @param key      The key of the message.
+     */
+    public synchronized void key(@NotNull String language, @NotNull PoolType type, @NotNull String pool, @NotNull String folder, @NotNull String key) {
+        this.pending.language(language).pool(type, pool).keys().add(new ChangeSet.ContentKey(folder, key));
+    }
+
+    /**
+     * Marks a pool as newly created, so it is written as a whole.
+     *
+     * @param language The name of the language.
+     * @param type     The type of the pool.
+     * @param pool     The name of the pool.
+     */
+    public synchronized void created(@NotNull String language, @NotNull PoolType type, @NotNull String pool) {
+        this.pending.language(language).pool(type, pool).markCreated();
+    }
+
+    /**
+     * Marks a pool to be rewritten as a whole.
+     *
+     * @param language The name of the language.
+     * @param type     The type of the pool.
+     * @param pool     The name of the pool.
+     */
+    public synchronized void rewrite(@NotNull String language, @NotNull PoolType type, @NotNull String pool) {
+        this.pending.language(language).pool(type, pool).markRewrite();
+    }
+
+    /**
+     * Takes all pending changes, leaving the tracker empty.
+     *
+     * @return The pending changes.
+     */
+    public synchronized ChangeSet drain() {
+        var changes = this.pending;
+        this.pending = new ChangeSet();
+        return changes;
+    }
+
+    /**
+     * Adds a set of changes, e.g. the ones of a catalog swap or ones which could not be persisted.
+     *
+     * @param changes The changes to track.
+     */
+    public synchronized void track(@NotNull ChangeSet changes) {
+        this.pending.merge(changes);
+    }
+
+    public synchronized boolean isEmpty() {
+        return this.pending.isEmpty();
+    }
+
+    public synchronized int size() {
+        return this.pending.size();
+    }
+}
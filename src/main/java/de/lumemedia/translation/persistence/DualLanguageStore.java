@@ -0,0 +1,126 @@
+package de.lumemedia.translation.persistence;
+
+/*
+ * MIT License
+ *
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import com.mongodb.client.MongoCollection;
+import de.lumemedia.translation.Catalog;
+import de.lumemedia.translation.Language;
+import de.lumemedia.translation.TextUtil;
+import de.lumemedia.translation.folder.MultiFolderContentPool;
+import de.lumemedia.translation.unsorted.UnsortedContentPool;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.bson.Document;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Runs two storage layouts side by side while the languages are migrated from one to the other.
+ * <p>
+ * Languages are read from the primary store, and from the legacy store only if the primary store does
+ * not hold them yet. Every write goes to both stores, the primary first, so nodes running either layout
+ * see the same content and the migration can be rolled back until the legacy store is retired.
+ */
+@Getter
+@AllArgsConstructor
+public class DualLanguageStore implements LanguageStore {
+
+    private final LanguageStore primary;
+    private final LanguageStore legacy;
+
+    @Override
+    public MongoCollection<Document> languageCollection() {
+        return this.primary.languageCollection();
+    }
+
+    @Override
+    public List<Language> load(@Nullable Collection<String> names) {
+        List<Language> languages = new ArrayList<>(this.primary.load(names));
+        Set<String> loaded = new HashSet<>();
+        for (var language : languages) {
+            loaded.add(TextUtil.normalize(language.name()));
+        }
+
+        // Fall back to the legacy layout for languages which have not been migrated yet
+        for (var language : this.legacy.load(names)) {
+            if (loaded.add(TextUtil.normalize(language.name()))) {
+                languages.add(language);
+            }
+        }
+        return languages;
+    }
+
+    @Override
+    public Map<String, Long> revisions(@Nullable Collection<String> names) {
+        Map<String, Long> revisions = new LinkedHashMap<>();
+        Map<String, String> storedNames = new LinkedHashMap<>();
+        this.legacy.revisions(names).forEach((name, revision) -> {
+            storedNames.put(TextUtil.normalize(name), name);
+            revisions.put(name, revision);
+        });
+
+        // The primary layout wins for languages which are stored in both
+        this.primary.revisions(names).forEach((name, revision) -> {
+            var legacyName = storedNames.put(TextUtil.normalize(name), name);
+            if (legacyName != null) {
+                revisions.remove(legacyName);
+            }
+            revisions.put(name, revision);
+        });
+        return revisions;
+    }
+
+    @Override
+    public void insert(@NotNull Language language) {
+        this.primary.insert(language);
+        this.legacy.insert(language);
+    }
+
+    @Override
+    public void write(@NotNull ChangeSet changes, @NotNull Catalog catalog) {
+        this.primary.write(changes, catalog);
+        this.legacy.write(changes, catalog);
+    }
+
+    @Override
+    public UnsortedContentPool loadUnsorted(@NotNull String language, @NotNull String pool) {
+        var loaded = this.primary.loadUnsorted(language, pool);
+        return loaded == null ? this.legacy.loadUnsorted(language, pool) : loaded;
+    }
+
+    @Override
+    public MultiFolderContentPool loadFolder(@NotNull String language, @NotNull String pool) {
+        var loaded = this.primary.loadFolder(language, pool);
+        return loaded == null ? this.legacy.loadFolder(language, pool) : loaded;
+    }
+}
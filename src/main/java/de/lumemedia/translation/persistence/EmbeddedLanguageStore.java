@@ -0,0 +1,209 @@
+package de.lumemedia.translation.persistence;
+
+/*
+ * MIT License
+ *
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import de.lumemedia.translation.Catalog;
+import de.lumemedia.translation.DecodedCache;
+import de.lumemedia.translation.Language;
+import de.lumemedia.translation.TextUtil;
+import de.lumemedia.translation.TranslationOptions;
+import de.lumemedia.translation.folder.MultiFolderContentPool;
+import de.lumemedia.translation.serialize.LanguageSerializer;
+import de.lumemedia.translation.serialize.MultiFolderContentPoolSerializer;
+import de.lumemedia.translation.serialize.UnsortedContentPoolSerializer;
+import de.lumemedia.translation.unsorted.UnsortedContentPool;
+import de.lumemedia.translation.serialize.LanguageCodec;
+import de.lumemedia.translation.serialize.LanguageCodecProvider;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.conversions.Bson;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Stores each language with all of its pools in a single document.
+ * <p>
+ * Languages are decoded from the raw BSON of each document and encoded by the {@link LanguageCodecProvider
+ * language codec}, without intermediate documents or maps.
+ * <p>
+ * In lazy mode languages are read by an aggregation which keeps the content of the preloaded pools and
+ * reduces every other pool to its name and revision. Those pools are fetched one at a time on first
+ * access, with an {@code $elemMatch} projection which returns only the requested pool of the document.
+ */
+public class EmbeddedLanguageStore implements LanguageStore {
+
+    private final MongoCollection<Document> mongoCollection;
+    private final MongoCollection<RawBsonDocument> rawCollection;
+    private final MongoCollection<Language> typedCollection;
+    private final LanguageCodec languageCodec;
+    private final boolean rawStrings;
+    private final UnsortedContentPoolSerializer unsortedContentPoolSerializer;
+    private final MultiFolderContentPoolSerializer multiFolderContentPoolSerializer;
+    private final CatalogWriter catalogWriter;
+    private final boolean lazyPools;
+    private final List<String> preloadPools;
+    private final Executor deserializationExecutor;
+    private final int cursorBatchSize;
+
+    public EmbeddedLanguageStore(@NotNull MongoCollection<Document> mongoCollection, @NotNull TranslationOptions options) {
+        this(mongoCollection, new UnsortedContentPoolSerializer(), new MultiFolderContentPoolSerializer(), options);
+    }
+
+    public EmbeddedLanguageStore(@NotNull MongoCollection<Document> mongoCollection,
+                                 @NotNull UnsortedContentPoolSerializer unsortedContentPoolSerializer,
+                                 @NotNull MultiFolderContentPoolSerializer multiFolderContentPoolSerializer,
+                                 @NotNull TranslationOptions options) {
+        this.mongoCollection = mongoCollection;
+        this.unsortedContentPoolSerializer = unsortedContentPoolSerializer;
+        this.multiFolderContentPoolSerializer = multiFolderContentPoolSerializer;
+        this.catalogWriter = new CatalogWriter(mongoCollection, unsortedContentPoolSerializer, multiFolderContentPoolSerializer);
+        this.lazyPools = options.lazyPools();
+        this.preloadPools = options.preloadPools().stream().map(TextUtil::normalize).distinct().toList();
+        this.deserializationExecutor = options.deserializationExecutor();
+        this.cursorBatchSize = options.cursorBatchSize();
+
+        // Languages are streamed from and to BSON by the language codec, without intermediate documents
+        this.rawStrings = options.rawStrings();
+        this.languageCodec = new LanguageCodec(
+                this.lazyPools ? this : null,
+                this.rawStrings,
+                options.decodedCacheSize() > 0 ? new DecodedCache(options.decodedCacheSize()) : null
+        );
+        var codecRegistry = CodecRegistries.fromRegistries(
+                CodecRegistries.fromProviders(new LanguageCodecProvider(this.languageCodec)),
+                mongoCollection.getCodecRegistry()
+        );
+        this.typedCollection = mongoCollection.withCodecRegistry(codecRegistry).withDocumentClass(Language.class);
+        this.rawCollection = mongoCollection.withDocumentClass(RawBsonDocument.class);
+    }
+
+    @Override
+    public MongoCollection<Document> languageCollection() {
+        return this.mongoCollection;
+    }
+
+    @Override
+    public List<Language> load(@Nullable Collection<String> names) {
+        Bson filter = names == null ? new Document() : Filters.in("name", names);
+        var documents = this.lazyPools ? this.findShells(filter) : this.findDocuments(filter);
+
+        // Each document is decoded on its own while the cursor keeps reading, so a broken document does not abort the whole load
+        return ParallelDecoder.decode(documents, this::decode, this.deserializationExecutor);
+    }
+
+    @Override
+    public Map<String, Long> revisions(@Nullable Collection<String> names) {
+        Bson filter = names == null ? new Document() : Filters.in("name", names);
+        Map<String, Long> revisions = new LinkedHashMap<>();
+        for (var document : this.mongoCollection.find(filter).projection(Projections.include("name", "revision"))) {
+            revisions.put(document.getString("name"), LanguageSerializer.revision(document));
+        }
+        return revisions;
+    }
+
+    @Override
+    public void insert(@NotNull Language language) {
+        this.typedCollection.insertOne(language);
+    }
+
+    @Override
+    public void write(@NotNull ChangeSet changes, @NotNull Catalog catalog) {
+        this.catalogWriter.write(changes, catalog);
+    }
+
+    private Language decode(RawBsonDocument document) {
+        if (!this.rawStrings) {
+            return this.languageCodec.decode(document.asBsonReader(), DecoderContext.builder().build());
+        }
+
+        // The pools keep referencing the bytes of the document, values are decoded on first access
+        var buffer = document.getByteBuffer().asNIO();
+        var bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return this.languageCodec.decode(bytes);
+    }
+
+    private Iterable<RawBsonDocument> findDocuments(Bson filter) {
+        var documents = this.rawCollection.find(filter);
+        return this.cursorBatchSize > 0 ? documents.batchSize(this.cursorBatchSize) : documents;
+    }
+
+    private Iterable<RawBsonDocument> findShells(Bson filter) {
+        var documents = this.rawCollection.aggregate(List.of(
+                new Document("$match", filter),
+                new Document("$project", new Document("name", 1)
+                        .append("metaData", 1)
+                        .append("tags", 1)
+                        .append("defaultLanguage", 1)
+                        .append("revision", 1)
+                        .append(PoolType.UNSORTED.field(), this.poolProjection(PoolType.UNSORTED))
+                        .append(PoolType.FOLDER.field(), this.poolProjection(PoolType.FOLDER)))
+        ));
+        return this.cursorBatchSize > 0 ? documents.batchSize(this.cursorBatchSize) : documents;
+    }
+
+    private Document poolProjection(PoolType type) {
+        // Keep preloaded pools as they are, every other pool is reduced to its name and revision
+        var preloaded = new Document("$in", List.of(new Document("$toLower", "$$pool.pool"), this.preloadPools));
+        var reduced = new Document("pool", "$$pool.pool").append("revision", "$$pool.revision");
+        return new Document("$map", new Document("input", "$" + type.field())
+                .append("as", "pool")
+                .append("in", new Document("$cond", List.of(preloaded, "$$pool", reduced))));
+    }
+
+    @Override
+    public UnsortedContentPool loadUnsorted(@NotNull String language, @NotNull String pool) {
+        var document = this.loadPool(PoolType.UNSORTED, language, pool);
+        return document == null ? null : this.unsortedContentPoolSerializer.deserialize(document);
+    }
+
+    @Override
+    public MultiFolderContentPool loadFolder(@NotNull String language, @NotNull String pool) {
+        var document = this.loadPool(PoolType.FOLDER, language, pool);
+        return document == null ? null : this.multiFolderContentPoolSerializer.deserialize(document);
+    }
+
+    private Document loadPool(PoolType type, String language, String pool) {
+        var document = this.mongoCollection.find(Filters.eq("name", language))
+                .projection(Projections.elemMatch(type.field(), Filters.eq("pool", pool)))
+                .first();
+        if (document == null) {
+            return null;
+        }
+        var pools = document.getList(type.field(), Document.class);
+        return pools == null || pools.isEmpty() ? null : pools.get(0);
+    }
+}
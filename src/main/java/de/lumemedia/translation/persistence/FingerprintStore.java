@@ -0,0 +1,96 @@
+package de.lumemedia.translation.persistence;
+
+/*
+ * MIT License
+ *
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
+import lombok.Getter;
+import org.bson.Document;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores the fingerprints of the content which listeners injected.
+ * <p>
+ * Each document is {@code {_id, hash}}, where the id names the listener, system and folder of the content.
+ * A listener whose content still has the stored fingerprint is not injected again. Deleting the documents
+ * makes every node inject its listener content on its next start.
+ */
+public class FingerprintStore {
+
+    private static final BulkWriteOptions UNORDERED = new BulkWriteOptions().ordered(false);
+    private static final ReplaceOptions UPSERT = new ReplaceOptions().upsert(true);
+
+    @Getter
+    private final MongoCollection<Document> collection;
+
+    public FingerprintStore(@NotNull MongoCollection<Document> collection) {
+        this.collection = collection;
+    }
+
+    /**
+     * Reads stored fingerprints.
+     *
+     * @param ids The ids of the fingerprints.
+     * @return The stored fingerprint of each id, ids without a fingerprint are missing.
+     */
+    public Map<String, String> load(@NotNull Collection<String> ids) {
+        Map<String, String> fingerprints = new HashMap<>();
+        if (ids.isEmpty()) {
+            return fingerprints;
+        }
+        for (var document : this.collection.find(Filters.in("_id", ids))) {
+            fingerprints.put(document.getString("_id"), document.getString("hash"));
+        }
+        return fingerprints;
+    }
+
+    /**
+     * Stores fingerprints with a single bulk write, replacing the stored fingerprints of the same ids.
+     *
+     * @param fingerprints The fingerprints by their ids.
+     */
+    public void store(@NotNull Map<String, String> fingerprints) {
+        if (fingerprints.isEmpty()) {
+            return;
+        }
+        List<WriteModel<Document>> writes = new ArrayList<>(fingerprints.size());
+        fingerprints.forEach((id, hash) -> writes.add(new ReplaceOneModel<>(
+                Filters.eq("_id", id),
+                new Document("_id", id).append("hash", hash),
+                UPSERT
+        )));
+        this.collection.bulkWrite(writes, UNORDERED);
+    }
+}
@@ -0,0 +1,84 @@
+package de.lumemedia.translation.persistence;
+
+/*
+ * MIT License
+ *
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import com.mongodb.client.MongoCollection;
+import de.lumemedia.translation.Catalog;
+import de.lumemedia.translation.Language;
+import de.lumemedia.translation.PoolLoader;
+import org.bson.Document;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The storage layout of the languages in the database.
+ * <p>
+ * {@link EmbeddedLanguageStore} keeps each language with all of its pools in one document,
+ * {@link SplitLanguageStore} keeps one document per language and pool, and {@link DualLanguageStore}
+ * combines both while the languages are migrated. Languages loaded without the content of their pools
+ * fetch it through the store, which is therefore also their {@link PoolLoader}.
+ */
+public interface LanguageStore extends PoolLoader {
+
+    /**
+     * @return The collection holding one document per language.
+     */
+    MongoCollection<Document> languageCollection();
+
+    /**
+     * Loads languages. Documents which can not be deserialized are reported and skipped.
+     *
+     * @param names The names of the languages to load, or null to load all languages.
+     * @return The loaded languages.
+     */
+    List<Language> load(@Nullable Collection<String> names);
+
+    /**
+     * Reads the stored revision of languages without reading their content.
+     *
+     * @param names The names of the languages, or null for all languages.
+     * @return The revision of each stored language by its stored name.
+     */
+    Map<String, Long> revisions(@Nullable Collection<String> names);
+
+    /**
+     * Stores a new language with all of its pools.
+     *
+     * @param language The language to store.
+     */
+    void insert(@NotNull Language language);
+
+    /**
+     * Persists the given changes with the values of the given catalog.
+     *
+     * @param changes The changes to persist.
+     * @param catalog The catalog to read the current values from.
+     */
+    void write(@NotNull ChangeSet changes, @NotNull Catalog catalog);
+}
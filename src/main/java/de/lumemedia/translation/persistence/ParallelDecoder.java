@@ -0,0 +1,84 @@
+package de.lumemedia.translation.persistence;
+
+/*
+ * MIT License
+ *
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import de.lumemedia.translation.Language;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Decodes language documents in parallel while the cursor is still being read.
+ * <p>
+ * Every document is handed to the executor as soon as the cursor returns it, and the results are
+ * collected in cursor order. Languages therefore come out in the same order as with sequential
+ * decoding, which keeps duplicate-name resolution of the catalog deterministic, and failures are
+ * reported in cursor order as well.
+ */
+final class ParallelDecoder {
+
+    private ParallelDecoder() {
+    }
+
+    /**
+     * @param documents The documents to decode, typically a cursor.
+     * @param decoder   The decoder of a single document.
+     * @param executor  The executor to decode on, or null to decode on the calling thread.
+     * @param <D>       The document type.
+     * @return The decoded languages in document order, without the documents which failed to decode.
+     */
+    static <D> List<Language> decode(@NotNull Iterable<D> documents, @NotNull Function<D, Language> decoder, Executor executor) {
+        List<CompletableFuture<Language>> futures = new ArrayList<>();
+        for (var document : documents) {
+            futures.add(executor == null
+                    ? decodeNow(document, decoder)
+                    : CompletableFuture.supplyAsync(() -> decoder.apply(document), executor));
+        }
+
+        List<Language> languages = new ArrayList<>(futures.size());
+        for (var future : futures) {
+            try {
+                languages.add(future.join());
+            } catch (CompletionException exception) {
+                // Print stack trace if deserialization fails for any document
+                (exception.getCause() == null ? exception : exception.getCause()).printStackTrace();
+            }
+        }
+        return languages;
+    }
+
+    private static <D> CompletableFuture<Language> decodeNow(D document, Function<D, Language> decoder) {
+        try {
+            return CompletableFuture.completedFuture(decoder.apply(document));
+        } catch (RuntimeException exception) {
+            return CompletableFuture.failedFuture(exception);
+        }
+    }
+}
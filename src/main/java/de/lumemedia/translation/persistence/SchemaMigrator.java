@@ -0,0 +1,115 @@
+package de.lumemedia.translation.persistence;
+
+/*
+ * MIT License
+ *
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteManyModel;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
+import lombok.AllArgsConstructor;
+import org.bson.Document;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Copies languages from the embedded layout into the split layout.
+ * <p>
+ * The source collection is streamed with a cursor, so only one language document is held at a time.
+ * Every language is written with upserts and pool documents which are no longer part of the source are
+ * removed, which makes the migration idempotent: it can be interrupted and run again, and it can be run
+ * repeatedly while nodes on a {@link DualLanguageStore} keep writing to both layouts.
+ */
+@AllArgsConstructor
+public class SchemaMigrator {
+
+    private static final BulkWriteOptions UNORDERED = new BulkWriteOptions().ordered(false);
+    private static final ReplaceOptions UPSERT = new ReplaceOptions().upsert(true);
+
+    private final MongoCollection<Document> source;
+    private final SplitLanguageStore target;
+
+    /**
+     * Migrates all languages of the source collection.
+     *
+     * @param batchSize The number of language documents fetched per round trip.
+     * @return The number of migrated languages.
+     */
+    public long migrate(int batchSize) {
+        var migrated = 0L;
+        try (var cursor = this.source.find().batchSize(batchSize).iterator()) {
+            while (cursor.hasNext()) {
+                this.migrate(cursor.next());
+                migrated++;
+            }
+        }
+        return migrated;
+    }
+
+    /**
+     * Migrates a single language document of the embedded layout.
+     *
+     * @param document The language document.
+     */
+    public void migrate(@NotNull Document document) {
+        var name = document.getString("name");
+        List<WriteModel<Document>> models = new ArrayList<>();
+
+        for (var type : PoolType.values()) {
+            var pools = document.getList(type.field(), Document.class);
+            List<String> poolNames = new ArrayList<>();
+            if (pools != null) {
+                for (var pool : pools) {
+                    var poolName = pool.getString("pool");
+                    poolNames.add(poolName);
+                    models.add(new ReplaceOneModel<>(
+                            SplitLanguageStore.poolFilter(name, type, poolName),
+                            SplitLanguageStore.poolDocument(name, type, pool),
+                            UPSERT
+                    ));
+                }
+            }
+
+            // Remove pools which were dropped from the source since a previous run
+            models.add(new DeleteManyModel<>(Filters.and(
+                    Filters.eq("language", name),
+                    Filters.eq("type", type.name()),
+                    Filters.nin("pool", poolNames)
+            )));
+        }
+
+        // Write the pools before the language, so the language never becomes visible without them
+        this.target.poolCollection().bulkWrite(models, UNORDERED);
+        this.target.languageCollection().replaceOne(
+                Filters.eq("name", name),
+                SplitLanguageStore.languageDocument(document),
+                UPSERT
+        );
+    }
+}
@@ -0,0 +1,287 @@
+package de.lumemedia.translation.persistence;
+
+/*
+ * MIT License
+ *
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import com.google.gson.JsonObject;
+import dev.golgolex.quala.json.JsonUtils;
+import dev.golgolex.quala.json.document.JsonDocument;
+import de.lumemedia.translation.Catalog;
+import de.lumemedia.translation.Input;
+import de.lumemedia.translation.Language;
+import de.lumemedia.translation.LazyPools;
+import de.lumemedia.translation.PoolLoader;
+import de.lumemedia.translation.RawInputList;
+import de.lumemedia.translation.folder.Folder;
+import de.lumemedia.translation.folder.MultiFolderContentPool;
+import de.lumemedia.translation.unsorted.UnsortedContentPool;
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Local binary copy of the catalog, used to serve languages on startup before the database was read.
+ * <p>
+ * The snapshot stores every language with its revision and the revisions of its pools, so the
+ * database can be reconciled afterwards by fetching only what changed. Files are written to a
+ * temporary sibling and moved into place, and read into memory at once. A missing,
+ * truncated or foreign file is reported as absent.
+ * <p>
+ * In lazy mode only the pools fetched so far are stored with their content, all other pools are stored
+ * by name and revision and stay lazy after the snapshot was read.
+ */
+public class SnapshotStore {
+
+    private static final int MAGIC = 0x4C4D5453;
+    private static final int VERSION = 2;
+
+    @Getter
+    private final Path path;
+
+    public SnapshotStore(@NotNull Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Reads the languages of the snapshot.
+     *
+     * @param poolLoader The loader of pools which are stored by name only, or null to ignore those pools.
+     * @return The stored languages, or null if there is no readable snapshot.
+     */
+    public List<Language> read(PoolLoader poolLoader) {
+        if (!Files.isRegularFile(this.path)) {
+            return null;
+        }
+
+        try {
+            // The file is read once and completely, a heap buffer leaves no mapping which would lock the file on Windows
+            var buffer = ByteBuffer.wrap(Files.readAllBytes(this.path));
+            if (buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+
+            var count = buffer.getInt();
+            List<Language> languages = new ArrayList<>(count);
+            for (var i = 0; i < count; i++) {
+                languages.add(readLanguage(buffer, poolLoader));
+            }
+            return languages;
+        } catch (IOException | RuntimeException exception) {
+            // An unreadable snapshot is only a missed shortcut, the database is still the source of truth
+            exception.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Replaces the snapshot with the languages of the given catalog.
+     *
+     * @param catalog The catalog to store.
+     * @throws IOException If the snapshot could not be written.
+     */
+    public void write(@NotNull Catalog catalog) throws IOException {
+        var parent = this.path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        var temporary = this.path.resolveSibling(this.path.getFileName() + ".tmp");
+        try (var output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(catalog.languages().size());
+            for (var language : catalog.languages()) {
+                writeLanguage(output, language);
+            }
+        }
+
+        try {
+            Files.move(temporary, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException exception) {
+            Files.move(temporary, this.path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void writeLanguage(DataOutputStream output, Language language) throws IOException {
+        writeString(output, language.name());
+        writeString(output, JsonUtils.toJson(language.metaData().jsonObject()));
+        output.writeInt(language.tags().length);
+        for (var tag : language.tags()) {
+            writeString(output, tag);
+        }
+        output.writeBoolean(language.defaultLanguage());
+        output.writeLong(language.revision());
+
+        var unsortedContentPools = new ArrayList<>(language.unsortedContentPools());
+        var multiFolderContentPools = new ArrayList<>(language.multiFolderContentPools());
+        var lazyPools = language.lazyPools();
+        if (lazyPools != null) {
+            // Fetched pools are stored with their content, unless a pool put into the language shadows them
+            lazyPools.loadedUnsorted().stream()
+                    .filter(pool -> language.unsorted(pool.poolMame()) == pool)
+                    .forEach(unsortedContentPools::add);
+            lazyPools.loadedFolders().stream()
+                    .filter(pool -> language.folder(pool.poolMame()) == pool)
+                    .forEach(multiFolderContentPools::add);
+        }
+
+        output.writeInt(unsortedContentPools.size());
+        for (var pool : unsortedContentPools) {
+            writeString(output, pool.poolMame());
+            output.writeLong(pool.revision());
+            writeInputs(output, pool.inputs());
+        }
+
+        output.writeInt(multiFolderContentPools.size());
+        for (var pool : multiFolderContentPools) {
+            writeString(output, pool.poolMame());
+            output.writeLong(pool.revision());
+            output.writeInt(pool.folders().size());
+            for (var folder : pool.folders()) {
+                writeString(output, folder.key());
+                writeInputs(output, folder.rows());
+            }
+        }
+
+        for (var type : PoolType.values()) {
+            var pending = lazyPools == null ? List.<LazyPools.Pending>of() : lazyPools.names(type).values();
+            output.writeInt(pending.size());
+            for (var pool : pending) {
+                writeString(output, pool.pool());
+                output.writeLong(pool.revision());
+            }
+        }
+    }
+
+    private static void writeInputs(DataOutputStream output, List<Input> inputs) throws IOException {
+        output.writeInt(inputs.size());
+
+        // Raw content is copied without compiling or keeping the values which were never requested
+        if (inputs instanceof RawInputList rawInputs) {
+            for (var i = 0; i < rawInputs.size(); i++) {
+                writeString(output, rawInputs.key(i));
+                writeString(output, rawInputs.raw(i));
+            }
+            return;
+        }
+
+        for (var input : inputs) {
+            writeString(output, input.key());
+            writeString(output, input.raw());
+        }
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+            return;
+        }
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static Language readLanguage(ByteBuffer buffer, PoolLoader poolLoader) {
+        var name = readString(buffer);
+        var metaData = new JsonDocument(JsonUtils.fromJson(readString(buffer), JsonObject.class));
+        var tags = new String[buffer.getInt()];
+        for (var i = 0; i < tags.length; i++) {
+            tags[i] = readString(buffer);
+        }
+        var defaultLanguage = buffer.get() != 0;
+        var revision = buffer.getLong();
+
+        var unsortedCount = buffer.getInt();
+        List<UnsortedContentPool> unsortedContentPools = new ArrayList<>(unsortedCount);
+        for (var i = 0; i < unsortedCount; i++) {
+            var poolName = readString(buffer);
+            var poolRevision = buffer.getLong();
+            unsortedContentPools.add(new UnsortedContentPool(poolName, readInputs(buffer), poolRevision));
+        }
+
+        var multiCount = buffer.getInt();
+        List<MultiFolderContentPool> multiFolderContentPools = new ArrayList<>(multiCount);
+        for (var i = 0; i < multiCount; i++) {
+            var poolName = readString(buffer);
+            var poolRevision = buffer.getLong();
+            var folderCount = buffer.getInt();
+            var folders = new ArrayList<Folder>(folderCount);
+            for (var j = 0; j < folderCount; j++) {
+                var folder = Folder.of(poolName, readString(buffer));
+                folder.rows().addAll(readInputs(buffer));
+                folders.add(folder);
+            }
+            multiFolderContentPools.add(new MultiFolderContentPool(poolName, folders, poolRevision));
+        }
+
+        LazyPools lazyPools = null;
+        for (var type : PoolType.values()) {
+            var pendingCount = buffer.getInt();
+            for (var i = 0; i < pendingCount; i++) {
+                var poolName = readString(buffer);
+                var poolRevision = buffer.getLong();
+                if (poolLoader == null) {
+                    continue;
+                }
+                if (lazyPools == null) {
+                    lazyPools = new LazyPools(name, poolLoader);
+                }
+                lazyPools.pending(type, poolName, poolRevision);
+            }
+        }
+
+        return new Language(name, metaData, tags, unsortedContentPools, multiFolderContentPools, defaultLanguage, revision)
+                .withLazyPools(lazyPools);
+    }
+
+    private static ArrayList<Input> readInputs(ByteBuffer buffer) {
+        var count = buffer.getInt();
+        var inputs = new ArrayList<Input>(count);
+        for (var i = 0; i < count; i++) {
+            inputs.add(new Input(readString(buffer), readString(buffer)));
+        }
+        return inputs;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        var length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        var bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,317 @@
+package de.lumemedia.translation.persistence;
+
+/*
+ * MIT License
+ *
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoIterable;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import de.lumemedia.translation.Catalog;
+import de.lumemedia.translation.Language;
+import de.lumemedia.translation.TextUtil;
+import de.lumemedia.translation.TranslationOptions;
+import de.lumemedia.translation.folder.MultiFolderContentPool;
+import de.lumemedia.translation.serialize.LanguageSerializer;
+import de.lumemedia.translation.serialize.MultiFolderContentPoolSerializer;
+import de.lumemedia.translation.serialize.UnsortedContentPoolSerializer;
+import de.lumemedia.translation.unsorted.UnsortedContentPool;
+import lombok.Getter;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Stores one document per language and one document per (language, pool).
+ * <p>
+ * Language documents hold everything but the pools. Pool documents have the shape of an embedded pool,
+ * {@code {pool, content, revision}}, plus the {@code language} and {@code type} they belong to, and are
+ * unique on {@code {language, pool, type}}. Changes only touch the affected pool documents and increment
+ * the revision of their language document, so no document grows with the number of pools of a language.
+ */
+public class SplitLanguageStore implements LanguageStore {
+
+    private static final BulkWriteOptions UNORDERED = new BulkWriteOptions().ordered(false);
+    private static final UpdateOptions UPSERT = new UpdateOptions().upsert(true);
+
+    @Getter
+    private final MongoCollection<Document> languageCollection;
+    @Getter
+    private final MongoCollection<Document> poolCollection;
+    private final UnsortedContentPoolSerializer unsortedContentPoolSerializer;
+    private final MultiFolderContentPoolSerializer multiFolderContentPoolSerializer;
+    private final LanguageSerializer languageSerializer;
+    private final boolean lazyPools;
+    private final List<String> preloadPools;
+    private final Executor deserializationExecutor;
+    private final int cursorBatchSize;
+
+    public SplitLanguageStore(@NotNull MongoCollection<Document> languageCollection,
+                              @NotNull MongoCollection<Document> poolCollection,
+                              @NotNull TranslationOptions options) {
+        this.languageCollection = languageCollection;
+        this.poolCollection = poolCollection;
+        this.unsortedContentPoolSerializer = new UnsortedContentPoolSerializer();
+        this.multiFolderContentPoolSerializer = new MultiFolderContentPoolSerializer();
+        this.languageSerializer = new LanguageSerializer(this.unsortedContentPoolSerializer, this.multiFolderContentPoolSerializer);
+        this.lazyPools = options.lazyPools();
+        this.preloadPools = options.preloadPools().stream().map(TextUtil::normalize).distinct().toList();
+        this.deserializationExecutor = options.deserializationExecutor();
+        this.cursorBatchSize = options.cursorBatchSize();
+
+        // Every read and write addresses pool documents by their language and name
+        this.poolCollection.createIndex(Indexes.ascending("language", "pool", "type"), new IndexOptions().unique(true));
+    }
+
+    @Override
+    public List<Language> load(@Nullable Collection<String> names) {
+        Bson filter = names == null ? new Document() : Filters.in("name", names);
+        List<Document> languageDocuments = new ArrayList<>();
+        for (var document : this.batched(this.languageCollection.find(filter))) {
+            languageDocuments.add(document);
+        }
+        if (languageDocuments.isEmpty()) {
+            return List.of();
+        }
+
+        // Group the pool documents by language and type
+        Bson poolFilter = names == null
+                ? new Document()
+                : Filters.in("language", languageDocuments.stream().map(document -> document.getString("name")).toList());
+        Map<String, List<Document>> pools = new HashMap<>();
+        for (var pool : this.findPools(poolFilter)) {
+            pools.computeIfAbsent(TextUtil.normalize(pool.getString("language")) + '\n' + pool.getString("type"),
+                    s -> new ArrayList<>()).add(pool);
+        }
+
+        // Languages are decoded in parallel, each on its own, so a broken document does not abort the whole load
+        return ParallelDecoder.decode(languageDocuments, languageDocument -> {
+            // Assemble the embedded shape, so the language is deserialized like a single document
+            var name = TextUtil.normalize(languageDocument.getString("name"));
+            var document = new Document(languageDocument);
+            for (var type : PoolType.values()) {
+                document.put(type.field(), pools.getOrDefault(name + '\n' + type.name(), List.of()));
+            }
+            return this.languageSerializer.deserialize(document, this.lazyPools ? this : null);
+        }, this.deserializationExecutor);
+    }
+
+    private Iterable<Document> findPools(Bson filter) {
+        if (!this.lazyPools) {
+            return this.batched(this.poolCollection.find(filter));
+        }
+
+        // Keep the content of preloaded pools only, every other pool is reduced to its name and revision
+        var preloaded = new Document("$in", List.of(new Document("$toLower", "$pool"), this.preloadPools));
+        return this.batched(this.poolCollection.aggregate(List.of(
+                new Document("$match", filter),
+                new Document("$project", new Document("language", 1)
+                        .append("type", 1)
+                        .append("pool", 1)
+                        .append("revision", 1)
+                        .append("content", new Document("$cond", List.of(preloaded, "$content", "$$REMOVE"))))
+        )));
+    }
+
+    private <T> MongoIterable<T> batched(MongoIterable<T> documents) {
+        if (this.cursorBatchSize <= 0) {
+            return documents;
+        }
+        return documents instanceof FindIterable<T> find
+                ? find.batchSize(this.cursorBatchSize)
+                : ((AggregateIterable<T>) documents).batchSize(this.cursorBatchSize);
+    }
+
+    @Override
+    public Map<String, Long> revisions(@Nullable Collection<String> names) {
+        Bson filter = names == null ? new Document() : Filters.in("name", names);
+        Map<String, Long> revisions = new LinkedHashMap<>();
+        for (var document : this.languageCollection.find(filter).projection(Projections.include("name", "revision"))) {
+            revisions.put(document.getString("name"), LanguageSerializer.revision(document));
+        }
+        return revisions;
+    }
+
+    @Override
+    public void insert(@NotNull Language language) {
+        var document = this.languageSerializer.serialize(language);
+
+        // Store the pools first, the language becomes visible to other nodes with its pools in place
+        List<Document> pools = new ArrayList<>();
+        for (var type : PoolType.values()) {
+            for (var pool : document.getList(type.field(), Document.class)) {
+                pools.add(poolDocument(language.name(), type, pool));
+            }
+        }
+        if (!pools.isEmpty()) {
+            this.poolCollection.insertMany(pools);
+        }
+        this.languageCollection.insertOne(languageDocument(document));
+    }
+
+    @Override
+    public void write(@NotNull ChangeSet changes, @NotNull Catalog catalog) {
+        List<WriteModel<Document>> poolModels = new ArrayList<>();
+        List<WriteModel<Document>> languageModels = new ArrayList<>();
+
+        for (var languageChanges : changes.languages()) {
+            // Languages which are gone from the catalog have nothing left to write
+            var language = catalog.language(languageChanges.name());
+            if (language == null) {
+                continue;
+            }
+
+            var written = false;
+            for (var poolChanges : languageChanges.pools().values()) {
+                if (!poolChanges.rewrite() && poolChanges.keys().isEmpty()) {
+                    continue;
+                }
+
+                var type = poolChanges.type();
+                var poolName = CatalogWriter.poolName(language, type, poolChanges.pool());
+                if (poolName == null) {
+                    continue;
+                }
+                var filter = poolFilter(language.name(), type, poolName);
+                written = true;
+
+                // Created pools and keys which can not be addressed by a path rewrite the whole pool content
+                var rewrite = poolChanges.rewrite() || poolChanges.created() || poolChanges.keys().stream().anyMatch(contentKey ->
+                        !CatalogWriter.safeField(contentKey.key()) || (type == PoolType.FOLDER && !CatalogWriter.safeField(contentKey.folder())));
+                if (rewrite) {
+                    var pool = type == PoolType.FOLDER
+                            ? this.multiFolderContentPoolSerializer.serialize(language.folder(poolName))
+                            : this.unsortedContentPoolSerializer.serialize(language.unsorted(poolName));
+                    // The stored revision keeps counting up, only an upserted pool starts from scratch
+                    poolModels.add(new UpdateOneModel<>(filter, Updates.combine(
+                            Updates.set("content", pool.get("content")),
+                            Updates.inc("revision", 1L)
+                    ), UPSERT));
+                    continue;
+                }
+
+                var set = new Document();
+                var unset = new Document();
+                for (var contentKey : poolChanges.keys()) {
+                    var path = type == PoolType.FOLDER
+                            ? "content." + contentKey.folder() + "." + contentKey.key()
+                            : "content." + contentKey.key();
+                    var raw = CatalogWriter.raw(language, type, poolName, contentKey);
+                    if (raw == null) {
+                        unset.append(path, "");
+                    } else {
+                        set.append(path, raw);
+                    }
+                }
+
+                var update = new Document();
+                if (!set.isEmpty()) update.append("$set", set);
+                if (!unset.isEmpty()) update.append("$unset", unset);
+                update.append("$inc", new Document("revision", 1L));
+                poolModels.add(new UpdateOneModel<>(filter, update));
+            }
+
+            if (written) {
+                languageModels.add(new UpdateOneModel<>(Filters.eq("name", language.name()), Updates.inc("revision", 1L)));
+            }
+        }
+
+        // Write the pools before announcing them through the language revision
+        if (!poolModels.isEmpty()) {
+            this.poolCollection.bulkWrite(poolModels, UNORDERED);
+        }
+        if (!languageModels.isEmpty()) {
+            this.languageCollection.bulkWrite(languageModels, UNORDERED);
+        }
+    }
+
+    @Override
+    public UnsortedContentPool loadUnsorted(@NotNull String language, @NotNull String pool) {
+        var document = this.poolCollection.find(poolFilter(language, PoolType.UNSORTED, pool)).first();
+        return document == null ? null : this.unsortedContentPoolSerializer.deserialize(document);
+    }
+
+    @Override
+    public MultiFolderContentPool loadFolder(@NotNull String language, @NotNull String pool) {
+        var document = this.poolCollection.find(poolFilter(language, PoolType.FOLDER, pool)).first();
+        return document == null ? null : this.multiFolderContentPoolSerializer.deserialize(document);
+    }
+
+    /**
+     * Strips the pools off a language document of the embedded layout.
+     *
+     * @param document The embedded language document.
+     * @return The language document of the split layout.
+     */
+    public static Document languageDocument(@NotNull Document document) {
+        var languageDocument = new Document(document);
+        languageDocument.remove("_id");
+        for (var type : PoolType.values()) {
+            languageDocument.remove(type.field());
+        }
+        return languageDocument;
+    }
+
+    /**
+     * Creates the pool document of the split layout from an embedded pool.
+     *
+     * @param language The name of the language.
+     * @param type     The type of the pool.
+     * @param pool     The embedded pool.
+     * @return The pool document.
+     */
+    public static Document poolDocument(@NotNull String language, @NotNull PoolType type, @NotNull Document pool) {
+        var document = new Document("language", language).append("type", type.name());
+        document.putAll(pool);
+        return document;
+    }
+
+    /**
+     * @param language The name of the language.
+     * @param type     The type of the pool.
+     * @param pool     The stored name of the pool.
+     * @return The filter matching the pool document.
+     */
+    public static Bson poolFilter(@NotNull String language, @NotNull PoolType type, @NotNull String pool) {
+        return Filters.and(Filters.eq("language", language), Filters.eq("pool", pool), Filters.eq("type", type.name()));
+    }
+}
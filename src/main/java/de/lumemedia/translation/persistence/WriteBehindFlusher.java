@@ -0,0 +1,184 @@
+package de.lumemedia.translation.persistence;
+
+/*
+ * MIT License
+ *
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import de.lumemedia.translation.TranslationOptions;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind stage between content mutations and the database.
+ * <p>
+ * Mutations only record their changes in the {@link ChangeTracker} and call {@link #schedule()}.
+ * The first call opens a window of {@link TranslationOptions#flushDelay()}, and every change made within
+ * the window is persisted by one flush on the dedicated flush thread. A window is cut short as soon as
+ * {@link TranslationOptions#maxBatchSize()} changes are pending, and writers block while more than
+ * {@link TranslationOptions#maxPendingChanges()} changes are pending. The flush thread itself never blocks,
+ * since it is the only thread which could release it.
+ * <p>
+ * A failed flush is retried with the next window, and its writers are completed by the retry. After
+ * {@link TranslationOptions#maxFlushAttempts()} consecutive failures the pending changes are dropped and
+ * the writers are completed exceptionally.
+ */
+public class WriteBehindFlusher {
+
+    private final ChangeTracker changeTracker;
+    private final Runnable flushAction;
+    private final TranslationOptions options;
+    private final ScheduledExecutorService executor;
+    private final Object monitor = new Object();
+
+    private ScheduledFuture<?> scheduled;
+    private boolean immediate;
+    private CompletableFuture<Void> nextFlush = new CompletableFuture<>();
+    // The thread running the flushes, which must never wait for a flush itself
+    private volatile Thread flushThread;
+    // The number of flushes which failed in a row, only accessed by the flush thread
+    private int failedAttempts;
+
+    /**
+     * Creates a flusher.
+     *
+     * @param changeTracker The tracker holding the pending changes.
+     * @param flushAction   The action which persists all pending changes.
+     * @param options       The options defining window, batch size and backpressure.
+     * @param executor      The single-threaded scheduler running the flushes.
+     */
+    public WriteBehindFlusher(@NotNull ChangeTracker changeTracker, @NotNull Runnable flushAction,
+                              @NotNull TranslationOptions options, @NotNull ScheduledExecutorService executor) {
+        this.changeTracker = changeTracker;
+        this.flushAction = flushAction;
+        this.options = options;
+        this.executor = options.writeBehind() ? executor : null;
+    }
+
+    /**
+     * Schedules a flush of the pending changes.
+     *
+     * @return A future which completes once the scheduled flush has persisted the changes.
+     */
+    public CompletableFuture<Void> schedule() {
+        // Without write-behind the changes are written on the calling thread
+        if (this.executor == null) {
+            return this.runInline();
+        }
+
+        var pending = this.changeTracker.size();
+        CompletableFuture<Void> future;
+        synchronized (this.monitor) {
+            future = this.nextFlush;
+            if (pending >= this.options.maxBatchSize()) {
+                this.submit(0);
+            } else if (this.scheduled == null) {
+                this.submit(this.options.flushDelay().toMillis());
+            }
+        }
+
+        // Apply backpressure if writers outpace the flusher, unless the writer is the flusher, e.g. a continuation of a flush
+        if (pending >= this.options.maxPendingChanges() && Thread.currentThread() != this.flushThread) {
+            future.exceptionally(throwable -> null).join();
+        }
+        return future;
+    }
+
+    /**
+     * Flushes the pending changes without waiting for the window to end.
+     *
+     * @return A future which completes once all changes made before this call are persisted.
+     */
+    public CompletableFuture<Void> flush() {
+        if (this.executor == null) {
+            return this.runInline();
+        }
+
+        synchronized (this.monitor) {
+            this.submit(0);
+            return this.nextFlush;
+        }
+    }
+
+    private void submit(long delayMillis) {
+        // A pending window is only replaced if the flush has to happen earlier
+        if (this.scheduled != null) {
+            if (delayMillis > 0 || this.immediate) {
+                return;
+            }
+            this.scheduled.cancel(false);
+        }
+        this.immediate = delayMillis == 0;
+        this.scheduled = this.executor.schedule(this::run, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void run() {
+        this.flushThread = Thread.currentThread();
+        CompletableFuture<Void> completing;
+        synchronized (this.monitor) {
+            // Changes arriving from now on belong to the next flush
+            this.scheduled = null;
+            completing = this.nextFlush;
+            this.nextFlush = new CompletableFuture<>();
+        }
+
+        try {
+            this.flushAction.run();
+            this.failedAttempts = 0;
+            completing.complete(null);
+        } catch (Throwable throwable) {
+            throwable.printStackTrace();
+
+            synchronized (this.monitor) {
+                // The changes were kept by the flush action, retry them with the next window which completes their writers
+                if (++this.failedAttempts < this.options.maxFlushAttempts() && !this.changeTracker.isEmpty()) {
+                    this.nextFlush.whenComplete((result, failure) -> {
+                        if (failure == null) {
+                            completing.complete(null);
+                        } else {
+                            completing.completeExceptionally(failure);
+                        }
+                    });
+                    if (this.scheduled == null) {
+                        this.submit(this.options.flushDelay().toMillis());
+                    }
+                    return;
+                }
+
+                // Give up on changes which keep failing, so they are not retried forever
+                this.failedAttempts = 0;
+                this.changeTracker.drain();
+            }
+            completing.completeExceptionally(throwable);
+        }
+    }
+
+    private CompletableFuture<Void> runInline() {
+        // Failures propagate to the caller, just like a direct database update
+        this.flushAction.run();
+        return CompletableFuture.completedFuture(null);
+    }
+}
@@ -0,0 +1,182 @@
+package de.lumemedia.translation.serialize;
+
+/*
+ * MIT License
+ *
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import lombok.experimental.UtilityClass;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.jetbrains.annotations.NotNull;
+
+import java.math.BigDecimal;
+
+/**
+ * Streams Gson trees from and to BSON, so metadata is stored as a native sub-document instead of a
+ * JSON string which has to be parsed again.
+ */
+@UtilityClass
+public class JsonBson {
+
+    /**
+     * Writes a JSON value at the current position of the writer.
+     *
+     * @param writer  The writer.
+     * @param element The value to write.
+     */
+    public void write(@NotNull BsonWriter writer, JsonElement element) {
+        if (element == null || element.isJsonNull()) {
+            writer.writeNull();
+        } else if (element.isJsonObject()) {
+            writer.writeStartDocument();
+            for (var entry : element.getAsJsonObject().entrySet()) {
+                writer.writeName(entry.getKey());
+                write(writer, entry.getValue());
+            }
+            writer.writeEndDocument();
+        } else if (element.isJsonArray()) {
+            writer.writeStartArray();
+            for (var value : element.getAsJsonArray()) {
+                write(writer, value);
+            }
+            writer.writeEndArray();
+        } else {
+            var primitive = element.getAsJsonPrimitive();
+            if (primitive.isBoolean()) {
+                writer.writeBoolean(primitive.getAsBoolean());
+            } else if (primitive.isNumber()) {
+                writeNumber(writer, primitive);
+            } else {
+                writer.writeString(primitive.getAsString());
+            }
+        }
+    }
+
+    private void writeNumber(BsonWriter writer, JsonPrimitive primitive) {
+        // Integral numbers stay integral, everything else is stored as a double
+        var decimal = new BigDecimal(primitive.getAsString());
+        if (decimal.signum() == 0 || decimal.stripTrailingZeros().scale() <= 0) {
+            try {
+                var value = decimal.longValueExact();
+                if (value == (int) value) {
+                    writer.writeInt32((int) value);
+                } else {
+                    writer.writeInt64(value);
+                }
+                return;
+            } catch (ArithmeticException ignored) {
+                // Out of the range of a long, fall through to a double
+            }
+        }
+        writer.writeDouble(decimal.doubleValue());
+    }
+
+    /**
+     * Reads the value at the current position of the reader, whose type has already been read.
+     *
+     * @param reader The reader.
+     * @return The read value.
+     */
+    public JsonElement read(@NotNull BsonReader reader) {
+        switch (reader.getCurrentBsonType()) {
+            case DOCUMENT -> {
+                var object = new JsonObject();
+                reader.readStartDocument();
+                while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                    var name = reader.readName();
+                    object.add(name, read(reader));
+                }
+                reader.readEndDocument();
+                return object;
+            }
+            case ARRAY -> {
+                var array = new JsonArray();
+                reader.readStartArray();
+                while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                    array.add(read(reader));
+                }
+                reader.readEndArray();
+                return array;
+            }
+            case STRING -> {
+                return new JsonPrimitive(reader.readString());
+            }
+            case BOOLEAN -> {
+                return new JsonPrimitive(reader.readBoolean());
+            }
+            case INT32 -> {
+                return new JsonPrimitive(reader.readInt32());
+            }
+            case INT64 -> {
+                return new JsonPrimitive(reader.readInt64());
+            }
+            case DOUBLE -> {
+                return new JsonPrimitive(reader.readDouble());
+            }
+            case DECIMAL128 -> {
+                return new JsonPrimitive(reader.readDecimal128().bigDecimalValue());
+            }
+            case NULL -> {
+                reader.readNull();
+                return JsonNull.INSTANCE;
+            }
+            default -> {
+                reader.skipValue();
+                return JsonNull.INSTANCE;
+            }
+        }
+    }
+
+    /**
+     * Converts a JSON object into a BSON document.
+     *
+     * @param object The JSON object.
+     * @return The BSON document.
+     */
+    public BsonDocument toBson(@NotNull JsonObject object) {
+        var document = new BsonDocument();
+        write(new BsonDocumentWriter(document), object);
+        return document;
+    }
+
+    /**
+     * Converts a BSON document into a JSON object.
+     *
+     * @param document The BSON document.
+     * @return The JSON object.
+     */
+    public JsonObject fromBson(@NotNull BsonDocument document) {
+        var reader = new BsonDocumentReader(document);
+        reader.readBsonType();
+        return read(reader).getAsJsonObject();
+    }
+}
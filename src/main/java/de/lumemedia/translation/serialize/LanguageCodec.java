@@ -0,0 +1,359 @@
+package de.lumemedia.translation.serialize;
+
+/*
+ * MIT License
+ *
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import com.google.gson.JsonObject;
+import dev.golgolex.quala.json.JsonUtils;
+import dev.golgolex.quala.json.document.JsonDocument;
+import de.lumemedia.translation.ColumnarInputList;
+import de.lumemedia.translation.DecodedCache;
+import de.lumemedia.translation.IndexedList;
+import de.lumemedia.translation.Input;
+import de.lumemedia.translation.KeyDictionary;
+import de.lumemedia.translation.Language;
+import de.lumemedia.translation.LazyPools;
+import de.lumemedia.translation.PoolLoader;
+import de.lumemedia.translation.RawInputList;
+import de.lumemedia.translation.folder.Folder;
+import de.lumemedia.translation.folder.MultiFolderContentPool;
+import de.lumemedia.translation.persistence.PoolType;
+import de.lumemedia.translation.unsorted.UnsortedContentPool;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Reads and writes languages directly from and to BSON.
+ * <p>
+ * Pools are decoded straight into their {@link Input} lists, without intermediate documents or maps,
+ * and the metadata is stored as a native sub-document. Metadata stored as a JSON string by earlier
+ * versions is still read. Pools without content, as produced by the lazy loading projection, are
+ * registered to be fetched through the pool loader on first access.
+ * <p>
+ * With raw strings enabled, {@link #decode(byte[])} keeps the bytes of the document and only indexes the
+ * keys of each content document; values are decoded on first access by a {@link RawInputList}.
+ */
+public class LanguageCodec implements Codec<Language> {
+
+    private final PoolLoader poolLoader;
+    private final boolean rawStrings;
+    private final DecodedCache decodedCache;
+
+    public LanguageCodec() {
+        this(null);
+    }
+
+    /**
+     * @param poolLoader The loader of pools without content, or null if documents hold all content.
+     */
+    public LanguageCodec(@Nullable PoolLoader poolLoader) {
+        this(poolLoader, false, null);
+    }
+
+    /**
+     * @param poolLoader   The loader of pools without content, or null if documents hold all content.
+     * @param rawStrings   Whether {@link #decode(byte[])} decodes values on first access.
+     * @param decodedCache The bounded cache of values decoded on first access, or null to keep all of them.
+     */
+    public LanguageCodec(@Nullable PoolLoader poolLoader, boolean rawStrings, @Nullable DecodedCache decodedCache) {
+        this.poolLoader = poolLoader;
+        this.rawStrings = rawStrings;
+        this.decodedCache = decodedCache;
+    }
+
+    @Override
+    public Class<Language> getEncoderClass() {
+        return Language.class;
+    }
+
+    @Override
+    public void encode(BsonWriter writer, Language language, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        writer.writeString("name", language.name());
+        writer.writeName("metaData");
+        JsonBson.write(writer, language.metaData().jsonObject());
+
+        writer.writeStartArray("tags");
+        for (var tag : language.tags()) {
+            writer.writeString(tag);
+        }
+        writer.writeEndArray();
+
+        writer.writeStartArray(PoolType.UNSORTED.field());
+        for (var pool : language.unsortedContentPools()) {
+            writer.writeStartDocument();
+            writer.writeString("pool", pool.poolMame());
+            writer.writeStartDocument("content");
+            writeInputs(writer, pool.inputs());
+            writer.writeEndDocument();
+            writer.writeInt64("revision", pool.revision());
+            writer.writeEndDocument();
+        }
+        writer.writeEndArray();
+
+        writer.writeStartArray(PoolType.FOLDER.field());
+        for (var pool : language.multiFolderContentPools()) {
+            writer.writeStartDocument();
+            writer.writeString("pool", pool.poolMame());
+            writer.writeStartDocument("content");
+            for (var folder : pool.folders()) {
+                writer.writeStartDocument(folder.key());
+                writeInputs(writer, folder.rows());
+                writer.writeEndDocument();
+            }
+            writer.writeEndDocument();
+            writer.writeInt64("revision", pool.revision());
+            writer.writeEndDocument();
+        }
+        writer.writeEndArray();
+
+        writer.writeBoolean("defaultLanguage", language.defaultLanguage());
+        writer.writeInt64("revision", language.revision());
+        writer.writeEndDocument();
+    }
+
+    private static void writeInputs(BsonWriter writer, List<Input> inputs) {
+        for (var input : inputs) {
+            if (input.raw() == null) {
+                writer.writeNull(input.key());
+            } else {
+                writer.writeString(input.key(), input.raw());
+            }
+        }
+    }
+
+    @Override
+    public Language decode(BsonReader reader, DecoderContext decoderContext) {
+        return this.decodeLanguage(reader, null);
+    }
+
+    /**
+     * Decodes a language from the bytes of its document. With raw strings enabled, the pools keep
+     * referencing the given bytes, which must not be modified afterwards.
+     *
+     * @param document The bytes of the language document.
+     * @return The decoded language.
+     */
+    public Language decode(byte[] document) {
+        try (var reader = new BsonBinaryReader(ByteBuffer.wrap(document))) {
+            return this.decodeLanguage(reader, this.rawStrings ? document : null);
+        }
+    }
+
+    private Language decodeLanguage(BsonReader reader, byte[] raw) {
+        String name = null;
+        var metaData = new JsonDocument();
+        var tags = new String[0];
+        List<UnsortedContentPool> unsortedContentPools = new ArrayList<>();
+        List<MultiFolderContentPool> multiFolderContentPools = new ArrayList<>();
+        List<Pending> pending = new ArrayList<>();
+        var defaultLanguage = false;
+        var revision = 0L;
+
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case "name" -> name = reader.readString();
+                case "metaData" -> metaData = readMetaData(reader);
+                case "tags" -> tags = readTags(reader);
+                case "unsortedContentPools" -> this.readPools(reader, raw, PoolType.UNSORTED, unsortedContentPools, multiFolderContentPools, pending);
+                case "multiFolderContentPools" -> this.readPools(reader, raw, PoolType.FOLDER, unsortedContentPools, multiFolderContentPools, pending);
+                case "defaultLanguage" -> defaultLanguage = reader.readBoolean();
+                case "revision" -> revision = readLong(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+
+        // The name is only known once the whole document was read
+        LazyPools lazyPools = null;
+        if (!pending.isEmpty()) {
+            lazyPools = new LazyPools(name, this.poolLoader);
+            for (var pool : pending) {
+                lazyPools.pending(pool.type(), pool.pool(), pool.revision());
+            }
+        }
+
+        return new Language(name, metaData, tags, unsortedContentPools, multiFolderContentPools, defaultLanguage, revision)
+                .withLazyPools(lazyPools);
+    }
+
+    private static JsonDocument readMetaData(BsonReader reader) {
+        return switch (reader.getCurrentBsonType()) {
+            case DOCUMENT -> new JsonDocument(JsonBson.read(reader).getAsJsonObject());
+            // Metadata of earlier versions is stored as a JSON string
+            case STRING -> new JsonDocument(JsonUtils.fromJson(reader.readString(), JsonObject.class));
+            default -> {
+                reader.skipValue();
+                yield new JsonDocument();
+            }
+        };
+    }
+
+    private static String[] readTags(BsonReader reader) {
+        List<String> tags = new ArrayList<>();
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            tags.add(reader.readString());
+        }
+        reader.readEndArray();
+        return tags.toArray(new String[0]);
+    }
+
+    private void readPools(BsonReader reader, byte[] raw, PoolType type,
+                           List<UnsortedContentPool> unsortedContentPools,
+                           List<MultiFolderContentPool> multiFolderContentPools,
+                           List<Pending> pending) {
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String poolName = null;
+            IndexedList<Input> inputs = null;
+            ArrayList<Input> contents = null;
+            ArrayList<Folder> folders = null;
+            LinkedHashMap<String, ArrayList<Input>> folderContents = null;
+            var poolRevision = 0L;
+
+            reader.readStartDocument();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                switch (reader.readName()) {
+                    case "pool" -> poolName = reader.readString();
+                    case "revision" -> poolRevision = readLong(reader);
+                    case "content" -> {
+                        if (type == PoolType.FOLDER) {
+                            if (raw == null) {
+                                folderContents = readFolders(reader);
+                            } else {
+                                folders = this.readRawFolders(reader, raw);
+                            }
+                        } else if (raw == null) {
+                            contents = readInputs(reader);
+                        } else {
+                            // Only index the content, the values stay in the raw bytes
+                            inputs = new RawInputList(raw, position(reader), this.decodedCache);
+                            reader.skipValue();
+                        }
+                    }
+                    default -> reader.skipValue();
+                }
+            }
+            reader.readEndDocument();
+
+            // Decoded content is stored by the key dictionaries of the pool, which is known only now
+            if (contents != null) {
+                inputs = new ColumnarInputList(KeyDictionary.unsorted(poolName), contents);
+            }
+            if (folderContents != null) {
+                folders = new ArrayList<>(folderContents.size());
+                for (var entry : folderContents.entrySet()) {
+                    var folder = Folder.of(poolName, entry.getKey());
+                    folder.rows().addAll(entry.getValue());
+                    folders.add(folder);
+                }
+            }
+
+            // Pools reduced to their name and revision are fetched on first access
+            if (inputs == null && folders == null && this.poolLoader != null) {
+                pending.add(new Pending(type, poolName, poolRevision));
+            } else if (type == PoolType.FOLDER) {
+                multiFolderContentPools.add(new MultiFolderContentPool(poolName, folders == null ? new ArrayList<>() : folders, poolRevision));
+            } else {
+                unsortedContentPools.add(new UnsortedContentPool(poolName, inputs == null ? new IndexedList<>() : inputs, poolRevision));
+            }
+        }
+        reader.readEndArray();
+    }
+
+    private static LinkedHashMap<String, ArrayList<Input>> readFolders(BsonReader reader) {
+        var folders = new LinkedHashMap<String, ArrayList<Input>>();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            folders.put(reader.readName(), readInputs(reader));
+        }
+        reader.readEndDocument();
+        return folders;
+    }
+
+    private ArrayList<Folder> readRawFolders(BsonReader reader, byte[] raw) {
+        var folders = new ArrayList<Folder>();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            var key = reader.readName();
+            if (reader.getCurrentBsonType() == BsonType.DOCUMENT) {
+                folders.add(new Folder(key, new RawInputList(raw, position(reader), this.decodedCache)));
+            }
+            reader.skipValue();
+        }
+        reader.readEndDocument();
+        return folders;
+    }
+
+    private static int position(BsonReader reader) {
+        // The binary reader has already consumed the type and name, so it points at the value
+        return ((BsonBinaryReader) reader).getBsonInput().getPosition();
+    }
+
+    private static ArrayList<Input> readInputs(BsonReader reader) {
+        var inputs = new ArrayList<Input>();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            var key = reader.readName();
+            if (reader.getCurrentBsonType() == BsonType.STRING) {
+                inputs.add(new Input(key, reader.readString()));
+            } else if (reader.getCurrentBsonType() == BsonType.NULL) {
+                reader.readNull();
+                inputs.add(new Input(key, null));
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return inputs;
+    }
+
+    private static long readLong(BsonReader reader) {
+        return switch (reader.getCurrentBsonType()) {
+            case INT32 -> reader.readInt32();
+            case INT64 -> reader.readInt64();
+            case DOUBLE -> (long) reader.readDouble();
+            default -> {
+                reader.skipValue();
+                yield 0L;
+            }
+        };
+    }
+
+    private record Pending(PoolType type, String pool, long revision) {
+    }
+}
@@ -0,0 +1,65 @@
+package de.lumemedia.translation.serialize;
+
+/*
+ * MIT License
+ *
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import de.lumemedia.translation.Language;
+import de.lumemedia.translation.PoolLoader;
+import org.bson.codecs.Codec;
+import org.bson.codecs.configuration.CodecProvider;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Provides the {@link LanguageCodec} to a codec registry.
+ */
+public class LanguageCodecProvider implements CodecProvider {
+
+    private final LanguageCodec languageCodec;
+
+    public LanguageCodecProvider() {
+        this(new LanguageCodec());
+    }
+
+    /**
+     * @param poolLoader The loader of pools without content, or null if documents hold all content.
+     */
+    public LanguageCodecProvider(@Nullable PoolLoader poolLoader) {
+        this(new LanguageCodec(poolLoader));
+    }
+
+    /**
+     * @param languageCodec The configured codec to provide.
+     */
+    public LanguageCodecProvider(@NotNull LanguageCodec languageCodec) {
+        this.languageCodec = languageCodec;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Codec<T> get(Class<T> clazz, CodecRegistry registry) {
+        return clazz == Language.class ? (Codec<T>) this.languageCodec : null;
+    }
+}
@@ -25,15 +25,23 @@ package de.lumemedia.translation.serialize;
  */
 
 import com.google.gson.JsonObject;
+import com.mongodb.MongoClientSettings;
 import dev.golgolex.quala.json.JsonUtils;
 import dev.golgolex.quala.json.document.JsonDocument;
 import dev.golgolex.quala.mongo.ObjectToBson;
 import lombok.AllArgsConstructor;
 import de.lumemedia.translation.Language;
+import de.lumemedia.translation.LazyPools;
+import de.lumemedia.translation.PoolLoader;
+import de.lumemedia.translation.folder.MultiFolderContentPool;
+import de.lumemedia.translation.persistence.PoolType;
+import de.lumemedia.translation.unsorted.UnsortedContentPool;
+import org.bson.BsonDocument;
 import org.bson.Document;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.stream.Collectors;
+import java.util.List;
 
 @AllArgsConstructor
 public class LanguageSerializer implements ObjectToBson<Language> {
@@ -44,7 +52,7 @@ public class LanguageSerializer implements ObjectToBson<Language> {
     @Override
     public Document serialize(Language o) {
         return new Document("name", o.name())
-                .append("metaData", JsonUtils.toJson(o.metaData().jsonObject()))
+                .append("metaData", JsonBson.toBson(o.metaData().jsonObject()))
                 .append("tags", Arrays.stream(o.tags()).toList())
                 .append("unsortedContentPools", o.unsortedContentPools()
                         .stream()
@@ -54,24 +62,82 @@ public class LanguageSerializer implements ObjectToBson<Language> {
                         .stream()
                         .map(this.multiFolderContentPoolSerializer::serialize)
                         .toList())
-                .append("defaultLanguage", o.defaultLanguage());
+                .append("defaultLanguage", o.defaultLanguage())
+                .append("revision", o.revision());
+    }
+
+    /**
+     * Reads the metadata of a language document, which is a sub-document or, as stored by earlier
+     * versions, a JSON string.
+     *
+     * @param value The stored metadata.
+     * @return The metadata.
+     */
+    public static JsonDocument metaData(Object value) {
+        if (value instanceof String json) {
+            return new JsonDocument(JsonUtils.fromJson(json, JsonObject.class));
+        }
+        if (value instanceof BsonDocument bsonDocument) {
+            return new JsonDocument(JsonBson.fromBson(bsonDocument));
+        }
+        if (value instanceof Document document) {
+            return new JsonDocument(JsonBson.fromBson(document.toBsonDocument(Document.class, MongoClientSettings.getDefaultCodecRegistry())));
+        }
+        return new JsonDocument();
+    }
+
+    /**
+     * Reads a revision counter from the given document. Documents written before revisions were
+     * introduced carry no such field and are treated as revision 0.
+     *
+     * @param document The document to read from.
+     * @return The stored revision, or 0 when absent.
+     */
+    public static long revision(Document document) {
+        var value = document.get("revision");
+        return value instanceof Number number ? number.longValue() : 0L;
     }
 
     @Override
     public Language deserialize(Document document) {
+        return this.deserialize(document, null);
+    }
+
+    /**
+     * Deserializes a language document in which pools may have been projected to their name and revision.
+     * Such pools are registered to be fetched through the given loader on first access.
+     *
+     * @param document   The document to deserialize.
+     * @param poolLoader The loader of pools without content, or null if the document holds all content.
+     * @return The deserialized language.
+     */
+    public Language deserialize(Document document, PoolLoader poolLoader) {
         var name = document.getString("name");
-        var metaData = new JsonDocument(JsonUtils.fromJson(document.getString("metaData"), JsonObject.class));
+        var metaData = metaData(document.get("metaData"));
         var tags = document.getList("tags", String.class).toArray(new String[0]);
-        var unsortedContentPools = document.getList("unsortedContentPools", Document.class)
-                .stream()
-                .map(unsortedContentPoolSerializer::deserialize)
-                .collect(Collectors.toList());
-        var multiFolderContentPools = document.getList("multiFolderContentPools", Document.class)
-                .stream()
-                .map(multiFolderContentPoolSerializer::deserialize)
-                .collect(Collectors.toList());
+        var lazyPools = poolLoader == null ? null : new LazyPools(name, poolLoader);
+
+        List<UnsortedContentPool> unsortedContentPools = new ArrayList<>();
+        for (var pool : document.getList("unsortedContentPools", Document.class)) {
+            if (lazyPools != null && !pool.containsKey("content")) {
+                lazyPools.pending(PoolType.UNSORTED, pool.getString("pool"), revision(pool));
+            } else {
+                unsortedContentPools.add(this.unsortedContentPoolSerializer.deserialize(pool));
+            }
+        }
+
+        List<MultiFolderContentPool> multiFolderContentPools = new ArrayList<>();
+        for (var pool : document.getList("multiFolderContentPools", Document.class)) {
+            if (lazyPools != null && !pool.containsKey("content")) {
+                lazyPools.pending(PoolType.FOLDER, pool.getString("pool"), revision(pool));
+            } else {
+                multiFolderContentPools.add(this.multiFolderContentPoolSerializer.deserialize(pool));
+            }
+        }
+
         var defaultLanguage = document.getBoolean("defaultLanguage");
-        return new Language(name, metaData, tags, unsortedContentPools, multiFolderContentPools, defaultLanguage);
+        return new Language(name, metaData, tags, unsortedContentPools, multiFolderContentPools, defaultLanguage, revision(document))
+                .withLazyPools(lazyPools);
     }
 
 }
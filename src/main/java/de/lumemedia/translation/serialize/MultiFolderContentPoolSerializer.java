@@ -43,7 +43,8 @@ public class MultiFolderContentPoolSerializer {
         }
         // Create and return a Document containing the pool name and the contents map
         return new Document("pool", multiFolderContentPool.poolMame())
-                .append("content", contents);
+                .append("content", contents)
+                .append("revision", multiFolderContentPool.revision());
     }
 
     /**
@@ -63,14 +64,16 @@ public class MultiFolderContentPoolSerializer {
             ((Document) o).forEach((s1, o1) -> x.get(s).put(s1, (String) o1));
         });
 
+        // Get the pool name from the Document
+        String poolName = document.getString("pool");
+
         // Create and return a new MultiFolderContentPool using the deserialized data
         return new MultiFolderContentPool(
-                // Get the pool name from the Document
-                document.getString("pool"),
+                poolName,
                 // Map the deserialized data to create a list of Folder objects
                 new ArrayList<>(x.entrySet().stream().map(stringHashMapEntry -> {
-                    // Create a new Folder with the folder key
-                    Folder multiContent = new Folder(stringHashMapEntry.getKey());
+                    // Create a new Folder with the folder key, sharing the key dictionary of the folder with other languages
+                    Folder multiContent = Folder.of(poolName, stringHashMapEntry.getKey());
                     // Iterate through each entry in the folder's contents and add them as ContentTemplate objects
                     for (Map.Entry<String, String> stringStringEntry : stringHashMapEntry.getValue().entrySet())
                         multiContent.rows().add(new Input(
@@ -80,7 +83,9 @@ public class MultiFolderContentPoolSerializer {
                                 stringStringEntry.getValue()
                         ));
                     return multiContent;
-                }).toList())
+                }).toList()),
+                // Get the revision of the pool, documents without one start at 0
+                LanguageSerializer.revision(document)
         );
     }
 }
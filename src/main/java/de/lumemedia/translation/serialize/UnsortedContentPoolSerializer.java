@@ -39,7 +39,9 @@ public class UnsortedContentPoolSerializer {
             contents.put(input.key(), input.raw());
         }
         // Create and return a Document containing the pool name and the contents map
-        return new Document("pool", languagePool.poolMame()).append("content", contents);
+        return new Document("pool", languagePool.poolMame())
+                .append("content", contents)
+                .append("revision", languagePool.revision());
     }
 
     /**
@@ -59,7 +61,7 @@ public class UnsortedContentPoolSerializer {
             toInput.add(new Input(s, value));
         });
         // Create and return a new UnsortedContentPool using the deserialized data
-        return new UnsortedContentPool(document.getString("pool"), toInput);
+        return new UnsortedContentPool(document.getString("pool"), toInput, LanguageSerializer.revision(document));
     }
 
 }
@@ -1,7 +1,10 @@
 package de.lumemedia.translation.unsorted;
 
 import lombok.Getter;
+import de.lumemedia.translation.ColumnarInputList;
+import de.lumemedia.translation.IndexedList;
 import de.lumemedia.translation.Input;
+import de.lumemedia.translation.KeyDictionary;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.Serializable;
@@ -26,21 +29,66 @@ import java.util.List;
 @Getter
 public class UnsortedContentPool implements Serializable {
     protected final String poolMame;
-    protected final List<Input> inputs;
+    protected final IndexedList<Input> inputs;
+    protected final long revision;
 
     public UnsortedContentPool(@NotNull String poolMame) {
         this.poolMame = poolMame;
-        this.inputs = new ArrayList<>();
+        this.inputs = new ColumnarInputList(KeyDictionary.unsorted(poolMame));
+        this.revision = 0;
     }
 
     public UnsortedContentPool(@NotNull String poolMame, @NotNull ArrayList<Input> inputs) {
+        this(poolMame, inputs, 0);
+    }
+
+    public UnsortedContentPool(@NotNull String poolMame, @NotNull ArrayList<Input> inputs, long revision) {
+        this(poolMame, new ColumnarInputList(KeyDictionary.unsorted(poolMame), inputs), revision);
+    }
+
+    public UnsortedContentPool(@NotNull String poolMame, @NotNull IndexedList<Input> inputs, long revision) {
         this.poolMame = poolMame;
         this.inputs = inputs;
+        this.revision = revision;
+    }
+
+    /**
+     * Creates a copy of this pool with the given inputs appended.
+     *
+     * @param added The inputs to append.
+     * @return The copied pool.
+     */
+    public UnsortedContentPool withInputs(@NotNull List<Input> added) {
+        var copy = this.inputs instanceof ColumnarInputList columnar
+                ? new UnsortedContentPool(this.poolMame, columnar.copy(), this.revision)
+                : new UnsortedContentPool(this.poolMame, new ArrayList<>(this.inputs), this.revision);
+        copy.inputs.addAll(added);
+        return copy;
+    }
+
+    /**
+     * Creates a copy of this pool with another revision, sharing its inputs.
+     *
+     * @param revision The revision of the copy.
+     * @return The copied pool.
+     */
+    public UnsortedContentPool withRevision(long revision) {
+        return new UnsortedContentPool(this.poolMame, this.inputs, revision);
+    }
+
+    /**
+     * Makes the inputs of this pool read-only. Called before the pool is published with a catalog.
+     */
+    public void freeze() {
+        this.inputs.freeze();
+    }
+
+    public Input input(@NotNull String s) {
+        return this.inputs.find(s);
     }
 
-    public String rawContent(String s) {
-        var input = this.inputs.stream().filter(languageContent -> languageContent.key().equalsIgnoreCase(
-                s)).findFirst().orElse(null);
+    public String rawContent(@NotNull String s) {
+        var input = this.inputs.find(s);
         return input == null ? null : input.raw();
     }
 }
@@ -0,0 +1,280 @@
+package de.lumemedia.translation.processor;
+
+/*
+ * Copyright 2023-2024 LumeMedia-Translation contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a {@code TranslationRegistry} for every {@code TranslationListener} with {@code @Translation} methods.
+ * <p>
+ * The generated registry creates a listener for each content method and calls the method directly, and is
+ * registered as a service, so {@code TranslationListenerManager} registers the listener without reflection.
+ * Listeners which generated code cannot call, e.g. because a content method is private, get no registry and
+ * are still registered by reflection.
+ * <p>
+ * The processor is built separately from the library, as {@code de.lumemedia:Translation-processor}, and is
+ * enabled by adding it to the {@code annotationProcessorPaths} of the compiler plugin of the project declaring
+ * the listeners.
+ */
+public class TranslationProcessor extends AbstractProcessor {
+
+    private static final String TRANSLATION = "de.lumemedia.translation.listener.Translation";
+    private static final String LISTENER = "de.lumemedia.translation.listener.TranslationListener";
+    private static final String REGISTRY = "de.lumemedia.translation.listener.TranslationRegistry";
+    private static final String SERVICE_FILE = "META-INF/services/" + REGISTRY;
+
+    // The registries generated in any round, written to the service file when processing is over
+    private final Set<String> registries = new LinkedHashSet<>();
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Set.of(TRANSLATION);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            this.writeServices();
+            return false;
+        }
+
+        var translation = this.processingEnv.getElementUtils().getTypeElement(TRANSLATION);
+        var listener = this.processingEnv.getElementUtils().getTypeElement(LISTENER);
+        if (translation == null || listener == null) {
+            return false;
+        }
+
+        // Group the content methods by the listener declaring them, in source order
+        Map<TypeElement, List<ExecutableElement>> methods = new LinkedHashMap<>();
+        for (var method : ElementFilter.methodsIn(roundEnv.getElementsAnnotatedWith(translation))) {
+            methods.computeIfAbsent((TypeElement) method.getEnclosingElement(), type -> new ArrayList<>()).add(method);
+        }
+
+        var types = this.processingEnv.getTypeUtils();
+        for (var entry : methods.entrySet()) {
+            var type = entry.getKey();
+            // Only listeners are registered, annotated methods of other classes are ignored at runtime as well
+            if (!types.isAssignable(types.erasure(type.asType()), types.erasure(listener.asType()))) {
+                continue;
+            }
+            if (this.isCallable(type, entry.getValue())) {
+                this.generate(type, entry.getValue(), translation);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if generated code in the package of the listener can create it and call all of its content methods.
+     */
+    private boolean isCallable(TypeElement type, List<ExecutableElement> methods) {
+        if (type.getKind() != ElementKind.CLASS || type.getModifiers().contains(Modifier.ABSTRACT)) {
+            return this.fallback(type, "it is not a concrete class");
+        }
+        for (Element element = type; element instanceof TypeElement enclosing; element = element.getEnclosingElement()) {
+            if (enclosing.getModifiers().contains(Modifier.PRIVATE)) {
+                return this.fallback(type, "it is not accessible from its package");
+            }
+            if (enclosing.getNestingKind() == NestingKind.MEMBER && !enclosing.getModifiers().contains(Modifier.STATIC)) {
+                return this.fallback(type, "it is an inner class");
+            }
+            if (enclosing.getNestingKind() == NestingKind.LOCAL || enclosing.getNestingKind() == NestingKind.ANONYMOUS) {
+                return this.fallback(type, "it is a local class");
+            }
+        }
+
+        var constructors = ElementFilter.constructorsIn(type.getEnclosedElements());
+        if (constructors.stream().noneMatch(constructor -> constructor.getParameters().isEmpty()
+                && !constructor.getModifiers().contains(Modifier.PRIVATE))) {
+            return this.fallback(type, "it has no accessible constructor without parameters");
+        }
+
+        for (var method : methods) {
+            if (method.getModifiers().contains(Modifier.PRIVATE)) {
+                return this.fallback(type, "the content method " + method.getSimpleName() + " is private");
+            }
+        }
+        return true;
+    }
+
+    private boolean fallback(TypeElement type, String reason) {
+        this.processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                "No translation registry generated for " + type.getQualifiedName() + " because " + reason
+                        + ", it is registered by reflection", type);
+        return false;
+    }
+
+    private void generate(TypeElement type, List<ExecutableElement> methods, TypeElement translation) {
+        var elements = this.processingEnv.getElementUtils();
+        var types = this.processingEnv.getTypeUtils();
+        var list = types.erasure(elements.getTypeElement("java.util.List").asType());
+
+        var packageName = elements.getPackageOf(type).getQualifiedName().toString();
+        var listenerName = type.getQualifiedName().toString();
+        // Nested listeners are flattened into the name, e.g. Outer_Inner_TranslationRegistry
+        var binaryName = elements.getBinaryName(type).toString();
+        var simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1))
+                .replace('$', '_') + "_TranslationRegistry";
+        var registryName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+
+        // Like the reflective registration, every content method is called on its own listener instance
+        var constructorThrows = ElementFilter.constructorsIn(type.getEnclosedElements()).stream()
+                .anyMatch(constructor -> constructor.getParameters().isEmpty() && !constructor.getThrownTypes().isEmpty());
+        List<String> entries = new ArrayList<>();
+        for (var method : methods) {
+            // Methods the reflective registration would skip or fail to invoke are left out
+            if (!types.isAssignable(types.erasure(method.getReturnType()), list)) {
+                this.warn(method, "does not return a list and is ignored");
+                continue;
+            }
+            if (!method.getParameters().isEmpty()) {
+                this.warn(method, "has parameters and is ignored");
+                continue;
+            }
+            entries.add(this.entry(method, translation, listenerName, constructorThrows));
+        }
+
+        try (var writer = new PrintWriter(this.processingEnv.getFiler().createSourceFile(registryName, type).openWriter())) {
+            if (!packageName.isEmpty()) {
+                writer.println("package " + packageName + ";");
+                writer.println();
+            }
+            writer.println("@javax.annotation.processing.Generated(\"" + TranslationProcessor.class.getName() + "\")");
+            writer.println("public final class " + simpleName + " implements " + REGISTRY + " {");
+            writer.println();
+            writer.println("    @Override");
+            writer.println("    public Class<" + listenerName + "> listener() {");
+            writer.println("        return " + listenerName + ".class;");
+            writer.println("    }");
+            writer.println();
+            writer.println("    @Override");
+            writer.println("    @SuppressWarnings(\"unchecked\")");
+            writer.println("    public java.util.List<" + REGISTRY + ".Entry> entries() {");
+            writer.println("        return java.util.List.of(" + String.join(",", entries) + ");");
+            writer.println("    }");
+            writer.println("}");
+        } catch (IOException e) {
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Could not write the translation registry of " + listenerName + ": " + e.getMessage(), type);
+            return;
+        }
+        this.registries.add(registryName);
+    }
+
+    private String entry(ExecutableElement method, TypeElement translation, String listenerName, boolean constructorThrows) {
+        var elements = this.processingEnv.getElementUtils();
+        String system = "";
+        String folder = "";
+        String type = "UNKNOWN";
+        for (var mirror : method.getAnnotationMirrors()) {
+            if (!((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(TRANSLATION)) {
+                continue;
+            }
+            for (var value : this.values(mirror).entrySet()) {
+                switch (value.getKey()) {
+                    case "system" -> system = (String) value.getValue();
+                    case "folder" -> folder = (String) value.getValue();
+                    case "type" -> type = ((VariableElement) value.getValue()).getSimpleName().toString();
+                    default -> {
+                    }
+                }
+            }
+        }
+
+        var isStatic = method.getModifiers().contains(Modifier.STATIC);
+        var owner = isStatic ? listenerName : "new " + listenerName + "()";
+        var call = "(java.util.List<de.lumemedia.translation.Input>) (java.util.List<?>) " + owner + "." + method.getSimpleName() + "()";
+        // Checked exceptions cannot leave the supplier, they are reported like a failed invocation
+        var content = method.getThrownTypes().isEmpty() && (isStatic || !constructorThrows)
+                ? "() -> " + call
+                : "() -> {\n                            try {\n                                return " + call + ";\n"
+                + "                            } catch (Exception e) {\n                                throw new IllegalStateException(e);\n"
+                + "                            }\n                        }";
+        return "\n                new " + REGISTRY + ".Entry(" + elements.getConstantExpression(method.getSimpleName().toString()) + ",\n"
+                + "                        " + REGISTRY + ".translation(" + elements.getConstantExpression(system) + ", "
+                + elements.getConstantExpression(folder) + ", " + translation.getQualifiedName() + ".Type." + type + "),\n"
+                + "                        " + content + ")";
+    }
+
+    private Map<String, Object> values(AnnotationMirror mirror) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        this.processingEnv.getElementUtils().getElementValuesWithDefaults(mirror)
+                .forEach((element, value) -> values.put(element.getSimpleName().toString(), value.getValue()));
+        return values;
+    }
+
+    private void warn(ExecutableElement method, String message) {
+        this.processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                "The content method " + method.getSimpleName() + " " + message, method);
+    }
+
+    private void writeServices() {
+        if (this.registries.isEmpty()) {
+            return;
+        }
+        var filer = this.processingEnv.getFiler();
+
+        // Keep the registries of an earlier incremental compilation which are not generated again
+        Set<String> services = new LinkedHashSet<>();
+        try (var reader = new BufferedReader(new InputStreamReader(
+                filer.getResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE).openInputStream(), StandardCharsets.UTF_8))) {
+            reader.lines().map(String::trim).filter(line -> !line.isEmpty() && !line.startsWith("#")).forEach(services::add);
+        } catch (IOException | IllegalArgumentException ignored) {
+            // There is no service file yet
+        }
+        services.addAll(this.registries);
+
+        try (Writer writer = filer.createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE).openWriter()) {
+            for (var service : services) {
+                writer.write(service + "\n");
+            }
+        } catch (IOException e) {
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Could not write the translation registry services: " + e.getMessage());
+        }
+    }
+}